@@ -437,9 +437,14 @@ public abstract class BaseTaskActivity extends SherlockActivity implements
 									color, 
 									GregorianCalendar.getInstance().getTimeInMillis());
 							new_category.setID(data_source.getNextID(DatabaseHandler.TABLE_CATEGORIES));
-							data_source.addCategory(new_category);
-							category_adapter.insert(new_category, category_adapter.getCount() - 1);
-							category_adapter.notifyDataSetChanged();
+							if (data_source.addCategory(new_category)) {
+								category_adapter.insert(new_category, category_adapter.getCount() - 1);
+								category_adapter.notifyDataSetChanged();
+							} else {
+								// Name was taken after the dialog was opened
+								ToastMaker.toast(BaseTaskActivity.this, R.string.toast_category_exists);
+								s_category.setSelection(category_adapter.getPosition(default_category));
+							}
 							new_category_dialog_active = false;
 						}
 					});
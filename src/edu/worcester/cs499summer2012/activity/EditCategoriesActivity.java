@@ -219,7 +219,7 @@ public class EditCategoriesActivity extends SherlockListActivity implements Acti
 					ToastMaker.toast(this, R.string.toast_category_no_name);
 					dialog.cancel();
 				} else if (data_source.getExistingCategory(name) != null &&
-						   (selected_dialog == CREATE_DIALOG || (selected_dialog == EDIT_DIALOG && !name.equals(old_name)))) {
+						   (selected_dialog == CREATE_DIALOG || (selected_dialog == EDIT_DIALOG && !name.equalsIgnoreCase(old_name)))) {
 					// Category name already exists:
 					// If also is create dialog, cancel dialog
 					// Or if also is edit dialog and the name is not its own name, cancel dialog
@@ -243,13 +243,23 @@ public class EditCategoriesActivity extends SherlockListActivity implements Acti
 										color, 
 										GregorianCalendar.getInstance().getTimeInMillis());
 								new_category.setID(data_source.getNextID(DatabaseHandler.TABLE_CATEGORIES));
-								data_source.addCategory(new_category);
-								adapter.add(new_category);
+								if (data_source.addCategory(new_category))
+									adapter.add(new_category);
+								else
+									ToastMaker.toast(activity, R.string.toast_category_exists);
 							} else {
+								int old_color = selected_category.getColor();
+								long old_updated = selected_category.getUpdated();
 								selected_category.setName(et_category_name.getText().toString().trim());
 								selected_category.setColor(color);
 								selected_category.setUpdated(GregorianCalendar.getInstance().getTimeInMillis());
-								data_source.updateCategory(selected_category);
+								if (data_source.updateCategory(selected_category) == 0) {
+									// Name was taken after the dialog was opened
+									selected_category.setName(old_name);
+									selected_category.setColor(old_color);
+									selected_category.setUpdated(old_updated);
+									ToastMaker.toast(activity, R.string.toast_category_exists);
+								}
 							}
 							adapter.notifyDataSetChanged();
 							
@@ -288,10 +298,9 @@ public class EditCategoriesActivity extends SherlockListActivity implements Acti
 				
 				// Update any tasks that had this category
 				ArrayList<Task> tasks = data_source.getTasks(true, selected_category);
-				for (Task task : tasks) {
+				for (Task task : tasks)
 					task.setCategory(Category.NO_CATEGORY);
-					data_source.updateTask(task);
-				}
+				data_source.updateTasks(tasks);
 				
 				// Update homescreen widget (after change has been saved to DB)
 				TaskButlerWidgetProvider.updateWidget(activity);
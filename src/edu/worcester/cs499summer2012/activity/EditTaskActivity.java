@@ -37,13 +37,14 @@ public class EditTaskActivity extends BaseTaskActivity {
 	protected void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
 		
-		// Get the task from the intent
+		// Get the task from the intent, it is only queried again if it 
+		// changed since the intent was created
 		int id = getIntent().getIntExtra(Task.EXTRA_TASK_ID, 0);
 		if (id == 0) {
 			ToastMaker.toast(this, R.string.toast_error_no_task);
 			finish();
 		}
-        task = data_source.getTask(id);
+        task = data_source.getTask(getIntent());
         
         // Set task name
         et_name.setText(task.getName());
@@ -21,8 +21,10 @@ package edu.worcester.cs499summer2012.activity;
 
 import java.util.ArrayList;
 
+import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.app.AlertDialog;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
@@ -63,6 +65,7 @@ import edu.worcester.cs499summer2012.service.TaskButlerWidgetProvider;
 import edu.worcester.cs499summer2012.service.WakefulIntentService;
 import edu.worcester.cs499summer2012.task.BackupManager;
 import edu.worcester.cs499summer2012.task.Category;
+import edu.worcester.cs499summer2012.task.MemoryReporter;
 import edu.worcester.cs499summer2012.task.Task;
 import edu.worcester.cs499summer2012.task.ToastMaker;
 
@@ -74,7 +77,8 @@ import edu.worcester.cs499summer2012.task.ToastMaker;
  * @author James Celona
  */
 public final class MainActivity extends SherlockListActivity implements 
-OnItemLongClickListener, ActionMode.Callback, OnClickListener, OnGestureListener, OnTouchListener, android.content.DialogInterface.OnClickListener {
+OnItemLongClickListener, ActionMode.Callback, OnClickListener, OnGestureListener, OnTouchListener, android.content.DialogInterface.OnClickListener,
+TaskListAdapter.OnSortedListener {
 
 	/**************************************************************************
 	 * Static fields and methods                                              *
@@ -97,6 +101,14 @@ OnItemLongClickListener, ActionMode.Callback, OnClickListener, OnGestureListener
 	private SharedPreferences prefs;
 	private SharedPreferences.Editor prefs_editor;
 	private static TaskListAdapter adapter;
+	private ArrayList<Task> task_list;
+	private long task_list_version;
+	
+	// Sorted task list kept while the activity is stopped. onStart reuses it
+	// if neither the data nor the list settings have changed since
+	private static ArrayList<Task> cached_tasks;
+	private static String cached_list_key;
+	private static long cached_version;
 	private BackupManager backup_manager;
 	private GestureDetector gesture_detector;
 	private Object action_mode;
@@ -138,6 +150,29 @@ OnItemLongClickListener, ActionMode.Callback, OnClickListener, OnGestureListener
 			ToastMaker.toast(this, val + " tasks deleted");
 	}
 
+	/**
+	 * Cancels the alarms and notifications of every task in the database,
+	 * before the tasks are deleted or replaced.
+	 */
+	private void cancelAllAlarms() {
+		TaskAlarm alarm = new TaskAlarm();
+		for (int id : data_source.getTaskIDs()) {
+			alarm.cancelAlarm(this, id);
+			alarm.cancelNotification(this, id);
+		}
+	}
+
+	/**
+	 * Recreates the fast scroller after the sections of the shown list have 
+	 * changed. Before API 11 it keeps the sections it has read first.
+	 */
+	private void resetFastScroll() {
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+			getListView().setFastScrollEnabled(false);
+			getListView().setFastScrollEnabled(true);
+		}
+	}
+
 	public static synchronized TaskListAdapter getAdapter(){
 		return adapter;
 	}
@@ -229,48 +264,128 @@ OnItemLongClickListener, ActionMode.Callback, OnClickListener, OnGestureListener
 		this.startService(new Intent(this, TaskButlerService.class));
 	}
 
+	/**
+	 * @return a key identifying which tasks are listed and how they are 
+	 *         sorted and grouped, from the current preferences
+	 */
+	private String getListKey() {
+		return prefs.getInt(SettingsActivity.DISPLAY_CATEGORY, DISPLAY_ALL_CATEGORIES) + "|"
+				+ prefs.getBoolean(SettingsActivity.HIDE_COMPLETED, true) + "|"
+				+ prefs.getInt(SettingsActivity.SORT_TYPE, TaskListAdapter.AUTO_SORT) + "|"
+				+ prefs.getString(SettingsActivity.GROUP_BY, SettingsActivity.DEFAULT_GROUP_BY);
+	}
+
 	@Override
 	public void onStart() {
 		super.onStart();
 		
 		boolean hide_completed = prefs.getBoolean(SettingsActivity.HIDE_COMPLETED, true);
-
-		// Create an adapter for the task list
 		int display_category = prefs.getInt(SettingsActivity.DISPLAY_CATEGORY, DISPLAY_ALL_CATEGORIES);
-		if (display_category == DISPLAY_ALL_CATEGORIES)
-			adapter = new TaskListAdapter(this, data_source.getTasks(!hide_completed, null));
-		else {
-			Category cat = data_source.getCategory(display_category);
-			if (cat != null)
-				adapter = new TaskListAdapter(this, data_source.getTasks(!hide_completed, cat));
+		int group_by = Integer.parseInt(prefs.getString(SettingsActivity.GROUP_BY, SettingsActivity.DEFAULT_GROUP_BY));
+		
+		if (cached_tasks != null && cached_version == TasksDataSource.getDataVersion() 
+				&& getListKey().equals(cached_list_key)) {
+			// Nothing has changed since the list was last shown, reuse it
+			task_list = cached_tasks;
+			task_list_version = cached_version;
+			adapter = new TaskListAdapter(this, task_list);
+			adapter.setSortType(prefs.getInt(SettingsActivity.SORT_TYPE, TaskListAdapter.AUTO_SORT));
+			adapter.setGroupBy(group_by);
+			
+			// Due date groups depend on the current time
+			if (group_by == TaskListAdapter.GROUP_DUE_DATE)
+				adapter.sort();
+			else
+				adapter.notifyDataSetChanged();
+		} else {
+			// Read the version before querying, so a write during the query
+			// makes the list stale rather than being missed
+			task_list_version = TasksDataSource.getDataVersion();
+			
+			// Create an adapter for the task list
+			if (display_category == DISPLAY_ALL_CATEGORIES)
+				task_list = data_source.getTasks(!hide_completed, null);
 			else {
-				// Bug fix: trying to load a category that doesn't exist (has been deleted)
-				// will crash the app.
-				prefs_editor.putInt(SettingsActivity.DISPLAY_CATEGORY, DISPLAY_ALL_CATEGORIES);
-				prefs_editor.commit();
-				display_category = DISPLAY_ALL_CATEGORIES;
-				adapter = new TaskListAdapter(this, data_source.getTasks(!hide_completed, null));
+				Category cat = data_source.getCategory(display_category);
+				if (cat != null)
+					task_list = data_source.getTasks(!hide_completed, cat);
+				else {
+					// Bug fix: trying to load a category that doesn't exist (has been deleted)
+					// will crash the app.
+					prefs_editor.putInt(SettingsActivity.DISPLAY_CATEGORY, DISPLAY_ALL_CATEGORIES);
+					prefs_editor.commit();
+					display_category = DISPLAY_ALL_CATEGORIES;
+					task_list = data_source.getTasks(!hide_completed, null);
+				}
 			}
+			adapter = new TaskListAdapter(this, task_list);
+	
+			// Set sort type and grouping and sort the list
+			adapter.setSortType(prefs.getInt(SettingsActivity.SORT_TYPE, TaskListAdapter.AUTO_SORT));
+			adapter.setGroupBy(group_by);
+			adapter.sort();
 		}
+		cached_tasks = null;
 		setListAdapter(adapter);
-
-		// Set sort type and sort the list
-		adapter.setSortType(prefs.getInt(SettingsActivity.SORT_TYPE, TaskListAdapter.AUTO_SORT));
-		adapter.sort();
 		
 		adapter.setActivity(this);
+		adapter.setOnSortedListener(this);
 
 		createCategoryBar(display_category, hide_completed);
+		
+		MemoryReporter.report(this, task_list, adapter.getIndexBytes());
 	}
 
 	@Override
-	public void onStop() {
+	public void onStop() {
+		// Keep the sorted list for the next onStart
+		if (adapter != null)
+			adapter.finishSort();
+		cached_tasks = task_list;
+		cached_list_key = getListKey();
+		cached_version = task_list_version;
+		
 		// Destroy the adapter, it will be recreated in onStart
 		adapter = null;
+		task_list = null;
 
 		super.onStop();
 	}
 
+	// Only called from API 14 on, older devices get onLowMemory() only
+	@SuppressLint("NewApi")
+	@Override
+	public void onTrimMemory(int level) {
+		super.onTrimMemory(level);
+		
+		// Only hiding the UI is no reason to drop the kept list, it is what
+		// makes coming back fast
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW 
+				&& level != ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN)
+			releaseMemory();
+	}
+
+	@Override
+	public void onLowMemory() {
+		super.onLowMemory();
+		releaseMemory();
+	}
+
+	/**
+	 * Drops everything that can be read again from the database: the list
+	 * kept for the next onStart, the task cache and the due date labels and
+	 * categories of the adapter.
+	 */
+	private void releaseMemory() {
+		MemoryReporter.report(this, task_list != null ? task_list : cached_tasks, 
+				adapter != null ? adapter.getIndexBytes() : 0);
+		cached_tasks = null;
+		cached_list_key = null;
+		TasksDataSource.trimMemory();
+		if (adapter != null)
+			adapter.trimMemory();
+	}
+
 	@Override
 	public boolean onCreateOptionsMenu(Menu menu) {
 		MenuInflater inflater = getSupportMenuInflater();
@@ -343,12 +458,7 @@ OnItemLongClickListener, ActionMode.Callback, OnClickListener, OnGestureListener
 											// * Iterate through list of tasks
 											// * 	Cancel alarm
 											// *    Cancel existing notifications
-											ArrayList<Task> tasks = data_source.getTasks(true, null);
-											TaskAlarm alarm = new TaskAlarm();
-											for (Task task : tasks) {
-												alarm.cancelAlarm(context, task.getID());
-												alarm.cancelNotification(context, task.getID());
-											}
+											cancelAllAlarms();
 											
 											// Disconnect database
 											data_source = null;
@@ -358,7 +468,9 @@ OnItemLongClickListener, ActionMode.Callback, OnClickListener, OnGestureListener
 											ToastMaker.toast(context, BackupManager.interpretStringCode(result));
 											
 											// Reconnect database
+											TasksDataSource.invalidateCaches();
 											data_source = TasksDataSource.getInstance(context);
+											task_list_version = TasksDataSource.getDataVersion();
 											
 											// Remake the task list
 											adapter.clear();
@@ -444,7 +556,7 @@ OnItemLongClickListener, ActionMode.Callback, OnClickListener, OnGestureListener
 	public void onListItemClick(ListView list_view, View view, int position, 
 			long id) {
 		Intent intent = new Intent(this, ViewTaskActivity.class);
-		intent.putExtra(Task.EXTRA_TASK_ID, adapter.getItem(position).getID());
+		TasksDataSource.putTask(intent, adapter.getItem(position));
 		startActivityForResult(intent, VIEW_TASK_REQUEST);
 	}
 
@@ -504,7 +616,7 @@ OnItemLongClickListener, ActionMode.Callback, OnClickListener, OnGestureListener
 		case R.id.menu_main_edit_task:
 
 			Intent intent = new Intent(this, EditTaskActivity.class);
-			intent.putExtra(Task.EXTRA_TASK_ID, adapter.getItem(selected_task).getID());
+			TasksDataSource.putTask(intent, adapter.getItem(selected_task));
 			startActivityForResult(intent, EDIT_TASK_REQUEST);
 			mode.finish();
 			return true;
@@ -532,7 +644,8 @@ OnItemLongClickListener, ActionMode.Callback, OnClickListener, OnGestureListener
 	@Override
 	public void onClick(View v) {
 		Category category = (Category) v.getTag();
-		adapter.clear();
+		task_list_version = TasksDataSource.getDataVersion();
+		adapter.clear();
 		
 		boolean hide_completed = prefs.getBoolean(SettingsActivity.HIDE_COMPLETED, true);
 		
@@ -660,6 +773,16 @@ OnItemLongClickListener, ActionMode.Callback, OnClickListener, OnGestureListener
 		return gesture_detector.onTouchEvent(event);
 	}
 	
+	/**************************************************************************
+	 * Methods implementing TaskListAdapter.OnSortedListener interface        *
+	 **************************************************************************/
+
+	@Override
+	public void onSorted() {
+		// Sorting regroups the list
+		resetFastScroll();
+	}
+	
 	/**************************************************************************
 	 * Methods implementing DialogInterFace.OnClickListener interface         *
 	 **************************************************************************/
@@ -690,31 +813,20 @@ OnItemLongClickListener, ActionMode.Callback, OnClickListener, OnGestureListener
 			
 		case DELETE_MODE_FINISHED:
 			deleted_tasks = data_source.deleteFinishedTasks();
-			
-			for (int i = 0; i < adapter.getCount(); i++) {
-				if (adapter.getItem(i).isCompleted()) {
-					adapter.remove(adapter.getItem(i));
-					i--;
-				}
-			}
+			adapter.removeCompleted();
+			resetFastScroll();
 			
 			ToastMaker.toast(this, R.string.toast_task_deleted);
 			toastDeletedTasks(deleted_tasks);
 			break;
 			
 		case DELETE_MODE_ALL:
-			ArrayList<Task> tasks = data_source.getTasks(true, null);
-			
 			// Alarm logic: Delete several tasks (SettingsActivity)
 			// * Tasks must not be deleted from database yet!
 			// * Iterate through list of tasks to be deleted:
 			// * 	Cancel alarm
 			// *    Cancel existing notifications
-			alarm = new TaskAlarm();
-			for (Task t : tasks) {
-				alarm.cancelAlarm(this, t.getID());
-				alarm.cancelNotification(this, t.getID());
-			}
+			cancelAllAlarms();
 			
 			deleted_tasks = data_source.deleteAllTasks();
 			adapter.clear();
@@ -51,10 +51,12 @@ public class SettingsActivity extends SherlockPreferenceActivity implements
 	public static final String ALARM_TIME = "alarm_time";
 	public static final String SORT_TYPE = "sort_type";
 	public static final String DISPLAY_CATEGORY = "display_category";
+	public static final String GROUP_BY = "group_by";
 	
 	public static final String DEFAULT_REMINDER_TIME = "6";
 	public static final String DEFAULT_ALARM_TIME = "15";
 	public static final String DEFAULT_HOUR_VALUE = "12";
+	public static final String DEFAULT_GROUP_BY = "0";
 	
 	private SharedPreferences prefs;
 	private SharedPreferences.Editor prefs_editor;
@@ -65,6 +67,7 @@ public class SettingsActivity extends SherlockPreferenceActivity implements
 	private ListPreference lp_reminder_time;
 	private ListPreference lp_alarm_time;
 	private ListPreference lp_default_hour;
+	private ListPreference lp_group_by;
 	
     @SuppressWarnings("deprecation")
 	@Override
@@ -89,6 +92,7 @@ public class SettingsActivity extends SherlockPreferenceActivity implements
         lp_reminder_time = (ListPreference) this.findPreference(REMINDER_TIME);
         lp_alarm_time = (ListPreference) this.findPreference(ALARM_TIME);
         lp_default_hour = (ListPreference) this.findPreference(DEFAULT_HOUR);
+        lp_group_by = (ListPreference) this.findPreference(GROUP_BY);
         
         // Set listeners
         cbp_auto_sort.setOnPreferenceClickListener(this);
@@ -96,6 +100,7 @@ public class SettingsActivity extends SherlockPreferenceActivity implements
         lp_reminder_time.setOnPreferenceChangeListener(this);
         lp_alarm_time.setOnPreferenceChangeListener(this);
         lp_default_hour.setOnPreferenceChangeListener(this);
+        lp_group_by.setOnPreferenceChangeListener(this);
         cpb_vibrate.setOnPreferenceChangeListener(this);
         
         // Set checkbox states
@@ -113,6 +118,12 @@ public class SettingsActivity extends SherlockPreferenceActivity implements
         lp_alarm_time.setSummary(getReminderSummary(ALARM_TIME, 
         		prefs.getString(ALARM_TIME, DEFAULT_ALARM_TIME)));
         lp_default_hour.setSummary(getHourSummary(prefs.getString(DEFAULT_HOUR, DEFAULT_HOUR_VALUE)));
+        lp_group_by.setSummary(getGroupBySummary(prefs.getString(GROUP_BY, DEFAULT_GROUP_BY)));
+    }
+    
+    private CharSequence getGroupBySummary(String value) {
+    	int index = lp_group_by.findIndexOfValue(value);
+    	return index >= 0 ? lp_group_by.getEntries()[index] : null;
     }
     
     private String getReminderSummary(String key, String value) {
@@ -203,6 +214,11 @@ public class SettingsActivity extends SherlockPreferenceActivity implements
 			lp_default_hour.setSummary(getHourSummary((String) newValue));
 			return true;
 		}
+		
+		if (key.equals(GROUP_BY)) {
+			lp_group_by.setSummary(getGroupBySummary((String) newValue));
+			return true;
+		}
 			
 		return false;
 	}
@@ -178,13 +178,12 @@ DialogInterface.OnClickListener {
 	protected void onStart() {
 		super.onStart();
 		
-		// Get the task from the intent
-		int id = getIntent().getIntExtra(Task.EXTRA_TASK_ID, 0);
-		
-		if (id == 0)
+		// Get the task from the intent, it is only queried again if it 
+		// changed since the intent was created
+		if (getIntent().getIntExtra(Task.EXTRA_TASK_ID, 0) == 0)
 			finish();
 		
-		task = data_source.getTask(id);
+		task = data_source.getTask(getIntent());
 		
 		// Exit the task if it no longer exists (has been deleted)
 		if (task == null) {
@@ -214,7 +213,7 @@ DialogInterface.OnClickListener {
 
 		case R.id.menu_view_task_edit:
 			Intent intent = new Intent(this, EditTaskActivity.class);
-			intent.putExtra(Task.EXTRA_TASK_ID, task.getID());
+			TasksDataSource.putTask(intent, task);
 			startActivityForResult(intent, MainActivity.EDIT_TASK_REQUEST);
 			return true;
 
@@ -48,6 +48,8 @@ public class ComparatorListAdapter extends ArrayAdapter<Comparator> {
 		public TextView name;
 		public ImageView up;
 		public ImageView down;
+		public TextView direction;
+		public TextView nulls;
 	}
 	
 	/**************************************************************************
@@ -163,6 +165,33 @@ public class ComparatorListAdapter extends ArrayAdapter<Comparator> {
 				
 			});
 			
+			view_holder.direction = (TextView) view.findViewById(R.id.text_row_comparator_direction);
+			view_holder.direction.setOnClickListener(new OnClickListener() {
+
+				@Override
+				public void onClick(View v) {
+					// User wants to reverse the order of this comparator
+					Comparator comparator = (Comparator) view_holder.enabled.getTag();
+					comparator.toggleDirection();
+					data_source.updateComparator(comparator);
+					notifyDataSetChanged();
+				}
+				
+			});
+			view_holder.nulls = (TextView) view.findViewById(R.id.text_row_comparator_nulls);
+			view_holder.nulls.setOnClickListener(new OnClickListener() {
+
+				@Override
+				public void onClick(View v) {
+					// User wants to move tasks with no due date to the other end
+					Comparator comparator = (Comparator) view_holder.enabled.getTag();
+					comparator.toggleNulls();
+					data_source.updateComparator(comparator);
+					notifyDataSetChanged();
+				}
+				
+			});
+			
 			view.setTag(view_holder);
 			view_holder.enabled.setTag(comparator);
 		} else
@@ -182,6 +211,16 @@ public class ComparatorListAdapter extends ArrayAdapter<Comparator> {
 		holder.up.setImageResource(is_enabled ? R.drawable.ic_up_active : R.drawable.ic_up_inactive);
 		holder.down.setImageResource(is_enabled ? R.drawable.ic_down_active : R.drawable.ic_down_inactive);
 		
+		// Set direction and null placement
+		holder.direction.setText(comparator.isDescending() ? R.string.text_sort_descending : R.string.text_sort_ascending);
+		holder.direction.setEnabled(is_enabled);
+		if (comparator.getId() == Comparator.DATE_DUE) {
+			holder.nulls.setVisibility(View.VISIBLE);
+			holder.nulls.setText(comparator.isNullsFirst() ? R.string.text_sort_nulls_first : R.string.text_sort_nulls_last);
+			holder.nulls.setEnabled(is_enabled);
+		} else
+			holder.nulls.setVisibility(View.GONE);
+		
 		return view;
 	}
 }
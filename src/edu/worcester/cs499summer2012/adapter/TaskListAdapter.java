@@ -20,13 +20,17 @@
 package edu.worcester.cs499summer2012.adapter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.GregorianCalendar;
 
 import android.app.Activity;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.graphics.Color;
+import android.os.AsyncTask;
 import android.preference.PreferenceManager;
 import android.text.format.DateFormat;
 import android.view.LayoutInflater;
@@ -36,22 +40,19 @@ import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
 import android.widget.CheckBox;
 import android.widget.ImageView;
+import android.widget.SectionIndexer;
 import android.widget.TextView;
 import edu.worcester.cs499summer2012.R;
 import edu.worcester.cs499summer2012.activity.SettingsActivity;
 import edu.worcester.cs499summer2012.comparator.TaskAutoComparator;
-import edu.worcester.cs499summer2012.comparator.TaskCategoryComparator;
-import edu.worcester.cs499summer2012.comparator.TaskCompletionComparator;
-import edu.worcester.cs499summer2012.comparator.TaskDateCreatedComparator;
-import edu.worcester.cs499summer2012.comparator.TaskDateDueComparator;
-import edu.worcester.cs499summer2012.comparator.TaskDateModifiedComparator;
-import edu.worcester.cs499summer2012.comparator.TaskNameComparator;
-import edu.worcester.cs499summer2012.comparator.TaskPriorityComparator;
+import edu.worcester.cs499summer2012.comparator.TaskSortKeys;
 import edu.worcester.cs499summer2012.database.TasksDataSource;
 import edu.worcester.cs499summer2012.service.TaskAlarm;
 import edu.worcester.cs499summer2012.service.TaskButlerWidgetProvider;
+import edu.worcester.cs499summer2012.task.Category;
 import edu.worcester.cs499summer2012.task.Task;
 import edu.worcester.cs499summer2012.task.ToastMaker;
+import edu.worcester.cs499summer2012.util.IntObjectHashMap;
 
 /**
  * ListView adapter for the TaskList container. Enables tasks in a TaskList
@@ -59,7 +60,7 @@ import edu.worcester.cs499summer2012.task.ToastMaker;
  * comparators.
  * @author Jonathan Hasenzahl
  */
-public class TaskListAdapter extends ArrayAdapter<Task> {
+public class TaskListAdapter extends ArrayAdapter<Task> implements SectionIndexer {
 
 	/**************************************************************************
 	 * Static fields and methods                                              *
@@ -68,7 +69,34 @@ public class TaskListAdapter extends ArrayAdapter<Task> {
 	public static final int AUTO_SORT = 0;
 	public static final int CUSTOM_SORT = 1;
 	
+	public static final int GROUP_NONE = 0;
+	public static final int GROUP_CATEGORY = 1;
+	public static final int GROUP_PRIORITY = 2;
+	public static final int GROUP_DUE_DATE = 3;
+	
+	private static final Comparator<Task> AUTO_COMPARATOR = new TaskAutoComparator();
+	
+	// Auto sorts of lists at least this long run on a background thread. 
+	// Shorter lists are sorted at once, so callers see the sorted list 
+	// right away
+	private static final int BACKGROUND_SORT_THRESHOLD = 1000;
+	
+	// Due date groups, in list order
+	private static final int DUE_OVERDUE = 0;
+	private static final int DUE_TODAY = 1;
+	private static final int DUE_THIS_WEEK = 2;
+	private static final int DUE_LATER = 3;
+	private static final int DUE_NONE = 4;
+	private static final int DUE_COMPLETED = 5;
+	private static final int[] DUE_LABELS = { R.string.text_group_overdue, 
+											  R.string.text_group_today, 
+											  R.string.text_group_this_week, 
+											  R.string.text_group_later, 
+											  R.string.text_group_no_due_date, 
+											  R.string.text_group_completed };
+	
 	static class ViewHolder {
+		public TextView header;
 		public CheckBox is_completed;
 		public TextView name;
 		public View category;
@@ -76,6 +104,24 @@ public class TaskListAdapter extends ArrayAdapter<Task> {
 		public TextView due_date;
 	}
 	
+	/**
+	 * Notified when a sort has finished and the sorted list is shown.
+	 */
+	public interface OnSortedListener {
+		void onSorted();
+	}
+	
+	/**
+	 * The due date text of one task, reused until the due date changes or 
+	 * the current time reaches valid_until.
+	 */
+	private static class DueLabel {
+		long date_due;
+		long valid_until;
+		CharSequence text;
+		boolean past_due;
+	}
+	
 	/**************************************************************************
 	 * Private fields                                                         *
 	 **************************************************************************/
@@ -86,6 +132,37 @@ public class TaskListAdapter extends ArrayAdapter<Task> {
 	private TasksDataSource data_source;
 	private SharedPreferences prefs;
 	private int sort_type;
+	private int group_by;
+	
+	// Sort keys of the tasks in list order, set by an auto sort, kept when 
+	// tasks are removed and dropped when the list changes otherwise
+	private long[] primary_keys;
+	private long[] secondary_keys;
+	private boolean keys_kept = false;
+	
+	// Bumped when the list changes. A background sort is only swapped in 
+	// if the list has not changed since it started
+	private int list_version = 0;
+	private AutoSortTask pending_sort = null;
+	private OnSortedListener sorted_listener = null;
+	
+	// Section boundaries, computed once per sort, or once when next needed 
+	// after the list has changed
+	private String[] section_labels = new String[0];
+	private int[] section_starts = new int[0];
+	private int[] position_to_section = new int[0];
+	private boolean sections_computed = false;
+	private boolean sections_dirty = false;
+	
+	// Due date labels by task id, and the calendars used to build them
+	private IntObjectHashMap<DueLabel> due_labels = new IntObjectHashMap<DueLabel>();
+	private final Calendar label_now = new GregorianCalendar();
+	private final Calendar label_due = new GregorianCalendar();
+	
+	// Categories by id, read once per adapter or after trimMemory(). 
+	// Categories are only edited in another activity, and the adapter is 
+	// recreated after it
+	private IntObjectHashMap<Category> categories = new IntObjectHashMap<Category>();
 	
 	/**************************************************************************
 	 * Constructors                                                           *
@@ -129,6 +206,7 @@ public class TaskListAdapter extends ArrayAdapter<Task> {
 			view = inflater.inflate(R.layout.row_task, null);
 			
 			final ViewHolder view_holder = new ViewHolder();
+			view_holder.header = (TextView) view.findViewById(R.id.text_row_header);
 			view_holder.is_completed = (CheckBox) view.findViewById(R.id.checkbox_row_complete);
 			view_holder.is_completed.setOnClickListener(new OnClickListener() {
 				
@@ -179,15 +257,13 @@ public class TaskListAdapter extends ArrayAdapter<Task> {
 							alarm.setAlarm(context, task);
 					}
 					
-					// If "hide completed tasks" option, then remove the task from the adapter
-					if (prefs.getBoolean(SettingsActivity.HIDE_COMPLETED, true) && task.isCompleted())
-							tasks.remove(task);
+					// Move the task to its new place in the list. If "hide 
+					// completed tasks" option, then this removes the task
+					reposition(task);
 					
 					// Update homescreen widget (after change has been saved to DB)
 					// This currently doesn't work for non-activities
 					TaskButlerWidgetProvider.updateWidget(activity);
-					
-					sort();
 				}
 			});
 			view_holder.name = (TextView) view.findViewById(R.id.text_row_name);
@@ -202,6 +278,15 @@ public class TaskListAdapter extends ArrayAdapter<Task> {
 
 		ViewHolder holder = (ViewHolder) view.getTag();
 		
+		// Set section header on the first task of each group
+		updateSections();
+		if (position < position_to_section.length 
+				&& section_starts[position_to_section[position]] == position) {
+			holder.header.setVisibility(View.VISIBLE);
+			holder.header.setText(section_labels[position_to_section[position]]);
+		} else
+			holder.header.setVisibility(View.GONE);
+		
 		// Set is completed
 		boolean is_complete = task.isCompleted();
 		holder.is_completed.setChecked(is_complete);
@@ -212,7 +297,7 @@ public class TaskListAdapter extends ArrayAdapter<Task> {
 		
 		// Set category
 		holder.category.setVisibility(View.VISIBLE);
-		holder.category.setBackgroundColor(data_source.getCategory(task.getCategory()).getColor());
+		holder.category.setBackgroundColor(getCategory(task.getCategory()).getColor());
 		
 		// Set priority
 		if (is_complete)
@@ -242,81 +327,525 @@ public class TaskListAdapter extends ArrayAdapter<Task> {
 			holder.due_date.setTextColor(Color.LTGRAY);
 			
 			if (task.hasDateDue()) {
-				Calendar current_date = GregorianCalendar.getInstance();
-				Calendar due_date = task.getDateDueCal();
-				
-				if (due_date.before(current_date))
-				{
-					// Due date is past
-					holder.due_date.setText("Past due");
+				DueLabel label = getDueLabel(task, System.currentTimeMillis());
+				holder.due_date.setText(label.text);
+				if (label.past_due)
 					holder.due_date.setTextColor(Color.RED);
-				} else if (due_date.get(Calendar.YEAR) > current_date.get(Calendar.YEAR)) {
-					// Due date is in a future year
-					holder.due_date.setText(DateFormat.format("MMM d'\n'yyyy", due_date));
-				} else if (due_date.get(Calendar.DAY_OF_YEAR) - current_date.get(Calendar.DAY_OF_YEAR) > 6) {
-					// Due date is more than a week away
-					holder.due_date.setText(DateFormat.format("MMM d", due_date));
-				} else if (due_date.get(Calendar.DAY_OF_YEAR) > current_date.get(Calendar.DAY_OF_YEAR)) {
-					// Due date is after today
-					holder.due_date.setText(DateFormat.format("E'\n'h:mmaa", due_date));
-				} else {
-					// Due date is today
-					holder.due_date.setText(DateFormat.format("'Today\n'h:mmaa", due_date));
-				}
 			} else
 				holder.due_date.setText("");
 		}
 		
 		return view;
 	}
+	
+	/**
+	 * Returns a category from the database, reading each one only once.
+	 * @param id
+	 * @return the category, or null if it does not exist
+	 */
+	private Category getCategory(int id) {
+		Category category = categories.get(id);
+		if (category == null) {
+			category = data_source.getCategory(id);
+			if (category != null)
+				categories.put(id, category);
+		}
+		return category;
+	}
+	
+	/**
+	 * Returns the due date label of a task, formatting it only if the due 
+	 * date changed or the cached label has expired. A label depends only on
+	 * the current day and whether the task is past due, so it stays valid 
+	 * until the due time or the next midnight, whichever comes first.
+	 * @param task a task with a due date
+	 * @param now the current time
+	 * @return the label
+	 */
+	private DueLabel getDueLabel(Task task, long now) {
+		long date_due = task.getDateDue();
+		DueLabel label = due_labels.get(task.getID());
+		if (label == null) {
+			label = new DueLabel();
+			due_labels.put(task.getID(), label);
+		} else if (label.date_due == date_due && now < label.valid_until)
+			return label;
+		
+		label_now.setTimeInMillis(now);
+		label_due.setTimeInMillis(date_due);
+		label.date_due = date_due;
+		label.past_due = false;
+		
+		if (label_due.before(label_now))
+		{
+			// Due date is past
+			label.text = "Past due";
+			label.past_due = true;
+			label.valid_until = Long.MAX_VALUE;
+			return label;
+		} else if (label_due.get(Calendar.YEAR) > label_now.get(Calendar.YEAR)) {
+			// Due date is in a future year
+			label.text = DateFormat.format("MMM d'\n'yyyy", label_due);
+		} else if (label_due.get(Calendar.DAY_OF_YEAR) - label_now.get(Calendar.DAY_OF_YEAR) > 6) {
+			// Due date is more than a week away
+			label.text = DateFormat.format("MMM d", label_due);
+		} else if (label_due.get(Calendar.DAY_OF_YEAR) > label_now.get(Calendar.DAY_OF_YEAR)) {
+			// Due date is after today
+			label.text = DateFormat.format("E'\n'h:mmaa", label_due);
+		} else {
+			// Due date is today
+			label.text = DateFormat.format("'Today\n'h:mmaa", label_due);
+		}
+		
+		// Next midnight
+		label_now.set(Calendar.HOUR_OF_DAY, 0);
+		label_now.set(Calendar.MINUTE, 0);
+		label_now.set(Calendar.SECOND, 0);
+		label_now.set(Calendar.MILLISECOND, 0);
+		label_now.add(Calendar.DAY_OF_YEAR, 1);
+		label.valid_until = Math.min(date_due + 1, label_now.getTimeInMillis());
+		return label;
+	}
+	
+	/**
+	 * Marks the section boundaries as outdated whenever the list has changed
+	 * without being sorted, e.g. a task was added. They are computed once 
+	 * when next needed, so adding many tasks in a row stays linear.
+	 */
+	@Override
+	public void notifyDataSetChanged() {
+		list_version++;
+		if (!sections_computed) {
+			if (!keys_kept) {
+				primary_keys = null;
+				secondary_keys = null;
+			}
+			sections_dirty = true;
+		}
+		sections_computed = false;
+		keys_kept = false;
+		super.notifyDataSetChanged();
+	}
+	
+	/**
+	 * Removes a task, keeping the sort keys of the other tasks.
+	 * @param task the task to remove
+	 */
+	@Override
+	public void remove(Task task) {
+		int index = tasks.indexOf(task);
+		if (index >= 0 && primary_keys != null && primary_keys.length == tasks.size()) {
+			primary_keys = removeKey(primary_keys, index);
+			secondary_keys = removeKey(secondary_keys, index);
+			keys_kept = true;
+		}
+		super.remove(task);
+	}
+	
+	/**************************************************************************
+	 * Methods implementing SectionIndexer interface                          *
+	 **************************************************************************/
+	
+	@Override
+	public Object[] getSections() {
+		updateSections();
+		return section_labels;
+	}
+	
+	@Override
+	public int getPositionForSection(int section) {
+		updateSections();
+		if (section_starts.length == 0)
+			return 0;
+		return section_starts[Math.max(0, Math.min(section, section_starts.length - 1))];
+	}
+	
+	@Override
+	public int getSectionForPosition(int position) {
+		updateSections();
+		if (position_to_section.length == 0)
+			return 0;
+		return position_to_section[Math.max(0, Math.min(position, position_to_section.length - 1))];
+	}
+	
+	/**************************************************************************
+	 * Sorting and grouping                                                   *
+	 **************************************************************************/
 
+	/**
+	 * Sorts the list by the current sort type and groups it. Auto sorts of 
+	 * long lists run on a background thread, the list is shown as it is 
+	 * until the sorted copy is swapped in.
+	 */
 	public void sort() {
+		if (pending_sort != null) {
+			pending_sort.cancel(false);
+			pending_sort = null;
+		}
+		
+		if (sort_type == AUTO_SORT && tasks.size() >= BACKGROUND_SORT_THRESHOLD) {
+			pending_sort = new AutoSortTask();
+			pending_sort.execute();
+		} else
+			sortNow();
+	}
+	
+	/**
+	 * Finishes a running background sort on the calling thread, for when 
+	 * the list is kept beyond this adapter.
+	 */
+	public void finishSort() {
+		if (pending_sort != null) {
+			pending_sort.cancel(false);
+			pending_sort = null;
+			sortNow();
+		}
+	}
+	
+	private void sortNow() {
 		if (sort_type == AUTO_SORT) {
-			this.sort(new TaskAutoComparator());
+			primary_keys = new long[tasks.size()];
+			secondary_keys = new long[tasks.size()];
+			TaskSortKeys.sort(tasks, primary_keys, secondary_keys);
 		} else {
-			ArrayList<edu.worcester.cs499summer2012.task.Comparator> comparators = data_source.getComparators();
-			// Must iterate through the list backwards so higher sorting is done later
-			for (int i = comparators.size(); i > 0; i--) {
-				edu.worcester.cs499summer2012.task.Comparator comparator = comparators.get(i - 1);
-				if (comparator.isEnabled()) {
-					switch (comparator.getId()) {
-					case edu.worcester.cs499summer2012.task.Comparator.NAME:
-						this.sort(new TaskNameComparator());
-						break;
-						
-					case edu.worcester.cs499summer2012.task.Comparator.COMPLETION:
-						this.sort(new TaskCompletionComparator());
-						break;
-						
-					case edu.worcester.cs499summer2012.task.Comparator.PRIORITY:
-						this.sort(new TaskPriorityComparator());
-						break;
-						
-					case edu.worcester.cs499summer2012.task.Comparator.CATEGORY:
-						this.sort(new TaskCategoryComparator());
-						break;
-						
-					case edu.worcester.cs499summer2012.task.Comparator.DATE_DUE:
-						this.sort(new TaskDateDueComparator());
-						break;
-						
-					case edu.worcester.cs499summer2012.task.Comparator.DATE_CREATED:
-						this.sort(new TaskDateCreatedComparator());
-						break;
-						
-					case edu.worcester.cs499summer2012.task.Comparator.DATE_MODIFIED:
-						this.sort(new TaskDateModifiedComparator());
-						break;
-						
-					default: 
-						break;
-					}
+			Collections.sort(tasks, data_source.getCustomComparator());
+			primary_keys = null;
+			secondary_keys = null;
+		}
+		group();
+		this.notifyDataSetChanged();
+		if (sorted_listener != null)
+			sorted_listener.onSorted();
+	}
+	
+	/**
+	 * Auto sorts a copy of the list on a background thread and swaps it in 
+	 * on the UI thread. Task fields are only changed on the UI thread, and 
+	 * every change is followed by notifyDataSetChanged(), so a copy sorted
+	 * while a task changed is never swapped in; the list is sorted again.
+	 */
+	private class AutoSortTask extends AsyncTask<Void, Void, Void> {
+		
+		private final int version = list_version;
+		private final ArrayList<Task> sorted;
+		private final long[] primary;
+		private final long[] secondary;
+		
+		AutoSortTask() {
+			sorted = new ArrayList<Task>(tasks);
+			primary = new long[sorted.size()];
+			secondary = new long[sorted.size()];
+		}
+		
+		@Override
+		protected Void doInBackground(Void... params) {
+			TaskSortKeys.sort(sorted, primary, secondary);
+			return null;
+		}
+		
+		@Override
+		protected void onPostExecute(Void result) {
+			if (pending_sort != this)
+				return;
+			pending_sort = null;
+			
+			// The list has changed while it was sorted
+			if (version != list_version) {
+				sort();
+				return;
+			}
+			
+			tasks.clear();
+			tasks.addAll(sorted);
+			primary_keys = primary;
+			secondary_keys = secondary;
+			group();
+			TaskListAdapter.this.notifyDataSetChanged();
+			if (sorted_listener != null)
+				sorted_listener.onSorted();
+		}
+	}
+	
+	/**
+	 * Moves each group together, keeping the sorted order within the groups,
+	 * and computes the section boundaries. Runs in O(n) after computing one 
+	 * group key per task from the sort keys.
+	 */
+	private void group() {
+		int[] group_keys = getGroupKeys();
+		sections_computed = true;
+		sections_dirty = false;
+		if (group_keys == null) {
+			computeSections(null);
+			return;
+		}
+		
+		// Rank the distinct group keys, groups are shown in key order
+		int size = group_keys.length;
+		int[] distinct = group_keys.clone();
+		Arrays.sort(distinct);
+		int groups = 0;
+		for (int i = 0; i < size; i++)
+			if (groups == 0 || distinct[i] != distinct[groups - 1])
+				distinct[groups++] = distinct[i];
+		
+		// Stable counting sort by group
+		int[] ranks = new int[size];
+		int[] starts = new int[groups + 1];
+		for (int i = 0; i < size; i++) {
+			ranks[i] = Arrays.binarySearch(distinct, 0, groups, group_keys[i]);
+			starts[ranks[i] + 1]++;
+		}
+		for (int i = 0; i < groups; i++)
+			starts[i + 1] += starts[i];
+		
+		Task[] array = tasks.toArray(new Task[size]);
+		long[] primary = primary_keys.clone();
+		long[] secondary = secondary_keys.clone();
+		int[] next = starts.clone();
+		for (int i = 0; i < size; i++) {
+			int position = next[ranks[i]]++;
+			tasks.set(position, array[i]);
+			primary_keys[position] = primary[i];
+			secondary_keys[position] = secondary[i];
+			group_keys[position] = distinct[ranks[i]];
+		}
+		
+		computeSections(group_keys);
+	}
+	
+	/**
+	 * Returns the group key of every task in list order, using the sort keys
+	 * of the last auto sort, or computing them if the list has changed since.
+	 * @return the group keys, or null if the list is not grouped
+	 */
+	private int[] getGroupKeys() {
+		if (group_by == GROUP_NONE)
+			return null;
+		
+		int size = tasks.size();
+		if (primary_keys == null || primary_keys.length != size) {
+			primary_keys = new long[size];
+			secondary_keys = new long[size];
+			for (int i = 0; i < size; i++) {
+				primary_keys[i] = TaskSortKeys.primaryKey(tasks.get(i));
+				secondary_keys[i] = TaskSortKeys.secondaryKey(tasks.get(i));
+			}
+		}
+		
+		int[] group_keys = new int[size];
+		switch (group_by) {
+		case GROUP_CATEGORY:
+			for (int i = 0; i < size; i++)
+				group_keys[i] = tasks.get(i).getCategory();
+			break;
+			
+		case GROUP_PRIORITY:
+			// Urgent first
+			for (int i = 0; i < size; i++)
+				group_keys[i] = Task.URGENT - TaskSortKeys.getPriority(secondary_keys[i]);
+			break;
+			
+		case GROUP_DUE_DATE:
+		default:
+			long now = System.currentTimeMillis();
+			Calendar calendar = GregorianCalendar.getInstance();
+			calendar.set(Calendar.HOUR_OF_DAY, 0);
+			calendar.set(Calendar.MINUTE, 0);
+			calendar.set(Calendar.SECOND, 0);
+			calendar.set(Calendar.MILLISECOND, 0);
+			calendar.add(Calendar.DAY_OF_YEAR, 1);
+			long end_of_today = calendar.getTimeInMillis();
+			calendar.add(Calendar.DAY_OF_YEAR, 6);
+			long end_of_week = calendar.getTimeInMillis();
+			
+			for (int i = 0; i < size; i++) {
+				long key = primary_keys[i];
+				if (TaskSortKeys.isCompleted(key))
+					group_keys[i] = DUE_COMPLETED;
+				else if (!TaskSortKeys.hasDateDue(key))
+					group_keys[i] = DUE_NONE;
+				else {
+					long due = TaskSortKeys.getDateDue(key);
+					if (due < now)
+						group_keys[i] = DUE_OVERDUE;
+					else if (due < end_of_today)
+						group_keys[i] = DUE_TODAY;
+					else if (due < end_of_week)
+						group_keys[i] = DUE_THIS_WEEK;
+					else
+						group_keys[i] = DUE_LATER;
+				}
+			}
+			break;
+		}
+		return group_keys;
+	}
+	
+	/**
+	 * Computes the section boundaries if the list has changed since they 
+	 * were last computed.
+	 */
+	private void updateSections() {
+		if (sections_dirty) {
+			sections_dirty = false;
+			computeSections(getGroupKeys());
+		}
+	}
+	
+	/**
+	 * Computes the section labels and boundaries of an already grouped list.
+	 * @param group_keys the group key of every task in list order, or null 
+	 *        if the list is not grouped
+	 */
+	private void computeSections(int[] group_keys) {
+		if (group_keys == null) {
+			section_labels = new String[0];
+			section_starts = new int[0];
+			position_to_section = new int[0];
+			return;
+		}
+		
+		int size = group_keys.length;
+		ArrayList<String> labels = new ArrayList<String>();
+		int[] starts = new int[size];
+		position_to_section = new int[size];
+		int section = -1;
+		for (int i = 0; i < size; i++) {
+			if (i == 0 || group_keys[i] != group_keys[i - 1]) {
+				section++;
+				starts[section] = i;
+				labels.add(getSectionLabel(group_keys[i]));
+			}
+			position_to_section[i] = section;
+		}
+		section_starts = new int[section + 1];
+		System.arraycopy(starts, 0, section_starts, 0, section + 1);
+		section_labels = labels.toArray(new String[labels.size()]);
+	}
+	
+	private String getSectionLabel(int group_key) {
+		switch (group_by) {
+		case GROUP_CATEGORY:
+			Category category = getCategory(group_key);
+			return category != null ? category.getName() : "";
+			
+		case GROUP_PRIORITY:
+			switch (Task.URGENT - group_key) {
+			case Task.URGENT:
+				return context.getString(R.string.text_priority_urgent);
+			case Task.TRIVIAL:
+				return context.getString(R.string.text_priority_trivial);
+			case Task.NORMAL:
+			default:
+				return context.getString(R.string.text_priority_normal);
+			}
+			
+		case GROUP_DUE_DATE:
+		default:
+			return context.getString(DUE_LABELS[group_key]);
+		}
+	}
+	
+	/**
+	 * Moves a single changed task to its place in the already sorted list,
+	 * instead of sorting the whole list again. The task replaces the list 
+	 * entry with the same ID. If "hide completed tasks" is on and the task 
+	 * is completed, it is only removed.
+	 * @param task the changed task
+	 */
+	public void reposition(Task task) {
+		int index = tasks.indexOf(task);
+		if (index >= 0)
+			tasks.remove(index);
+		
+		// The task may have changed groups, regroup the whole list
+		if (group_by != GROUP_NONE) {
+			if (!(task.isCompleted() && prefs.getBoolean(SettingsActivity.HIDE_COMPLETED, true)))
+				tasks.add(task);
+			sort();
+			return;
+		}
+		
+		if (!(task.isCompleted() && prefs.getBoolean(SettingsActivity.HIDE_COMPLETED, true))) {
+			Comparator<Task> comparator = getComparator();
+			
+			// Keep the old position if the task still fits there, otherwise 
+			// binary search for the position after all tasks ordered equally
+			int position = index;
+			if (index < 0 
+					|| (index > 0 && comparator.compare(tasks.get(index - 1), task) > 0)
+					|| (index < tasks.size() && comparator.compare(task, tasks.get(index)) > 0)) {
+				int low = 0;
+				int high = tasks.size();
+				while (low < high) {
+					int middle = (low + high) >>> 1;
+					if (comparator.compare(tasks.get(middle), task) <= 0)
+						low = middle + 1;
+					else
+						high = middle;
 				}
+				position = low;
 			}
+			tasks.add(position, task);
+		}
+		
+		this.notifyDataSetChanged();
+	}
+	
+	/**
+	 * Removes all completed tasks in one pass, keeping the order and the 
+	 * sort keys of the other tasks.
+	 */
+	public void removeCompleted() {
+		int size = tasks.size();
+		boolean has_keys = primary_keys != null && primary_keys.length == size;
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			Task task = tasks.get(i);
+			if (task.isCompleted())
+				continue;
+			tasks.set(kept, task);
+			if (has_keys) {
+				primary_keys[kept] = primary_keys[i];
+				secondary_keys[kept] = secondary_keys[i];
+			}
+			kept++;
+		}
+		if (kept == size)
+			return;
+		
+		tasks.subList(kept, size).clear();
+		if (has_keys) {
+			primary_keys = copyKeys(primary_keys, kept);
+			secondary_keys = copyKeys(secondary_keys, kept);
+			keys_kept = true;
 		}
 		this.notifyDataSetChanged();
 	}
 	
+	private static long[] removeKey(long[] keys, int index) {
+		long[] result = new long[keys.length - 1];
+		System.arraycopy(keys, 0, result, 0, index);
+		System.arraycopy(keys, index + 1, result, index, result.length - index);
+		return result;
+	}
+	
+	private static long[] copyKeys(long[] keys, int length) {
+		long[] result = new long[length];
+		System.arraycopy(keys, 0, result, 0, length);
+		return result;
+	}
+	
+	/**
+	 * @return the comparator matching the current sort type
+	 */
+	private Comparator<Task> getComparator() {
+		if (sort_type == AUTO_SORT)
+			return AUTO_COMPARATOR;
+		return data_source.getCustomComparator();
+	}
+	
 	/**************************************************************************
 	 * Getters and setters                                                    *
 	 **************************************************************************/
@@ -330,7 +859,41 @@ public class TaskListAdapter extends ArrayAdapter<Task> {
 			this.sort_type = sort_type;
 	}
 	
+	public int getGroupBy() {
+		return group_by;
+	}
+	
+	public void setGroupBy(int group_by) {
+		if (group_by >= GROUP_NONE && group_by <= GROUP_DUE_DATE)
+			this.group_by = group_by;
+	}
+	
 	public void setActivity(Activity activity) {
 		this.activity = activity;
 	}
+	
+	public void setOnSortedListener(OnSortedListener listener) {
+		this.sorted_listener = listener;
+	}
+	
+	/**
+	 * Drops the due date labels and the categories read so far, along with
+	 * their tables. Both are read again for the rows shown next.
+	 */
+	public void trimMemory() {
+		due_labels = new IntObjectHashMap<DueLabel>();
+		categories = new IntObjectHashMap<Category>();
+	}
+	
+	/**
+	 * @return the approximate number of bytes held by the sort keys and 
+	 *         section tables, not counting the tasks themselves
+	 */
+	public long getIndexBytes() {
+		long bytes = 4L * (section_starts.length + position_to_section.length)
+				+ 4L * section_labels.length;
+		if (primary_keys != null)
+			bytes += 8L * (primary_keys.length + secondary_keys.length);
+		return bytes;
+	}
 }
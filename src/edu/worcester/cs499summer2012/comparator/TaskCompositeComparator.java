@@ -0,0 +1,107 @@
+/*
+ * TaskCompositeComparator.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.comparator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import edu.worcester.cs499summer2012.task.Task;
+
+/**
+ * Comparator for custom sorting tasks. Chains the enabled comparators of the
+ * custom sort settings, so the list is sorted in a single pass. Each link 
+ * applies its own direction and, for due dates, null placement.
+ */
+public class TaskCompositeComparator implements Comparator<Task> {
+	
+	private final List<Comparator<Task>> comparators;
+	
+	// 1 for ascending, -1 for descending, per comparator
+	private final int[] signs;
+	
+	/**
+	 * Builds the comparator chain from the custom sort settings.
+	 * @param settings the comparator settings, highest sorting first
+	 */
+	public TaskCompositeComparator(List<edu.worcester.cs499summer2012.task.Comparator> settings) {
+		ArrayList<Comparator<Task>> chain = new ArrayList<Comparator<Task>>(settings.size());
+		ArrayList<Integer> chain_signs = new ArrayList<Integer>(settings.size());
+		for (edu.worcester.cs499summer2012.task.Comparator setting : settings) {
+			if (setting == null || !setting.isEnabled())
+				continue;
+			
+			Comparator<Task> comparator = create(setting);
+			if (comparator != null) {
+				chain.add(comparator);
+				chain_signs.add(setting.isDescending() ? -1 : 1);
+			}
+		}
+		comparators = chain;
+		signs = new int[chain_signs.size()];
+		for (int i = 0; i < signs.length; i++)
+			signs[i] = chain_signs.get(i);
+	}
+	
+	/**
+	 * Returns the task comparator for a comparator setting.
+	 * @param setting the comparator setting
+	 * @return the task comparator, or null if the id is unknown
+	 */
+	private static Comparator<Task> create(edu.worcester.cs499summer2012.task.Comparator setting) {
+		switch (setting.getId()) {
+		case edu.worcester.cs499summer2012.task.Comparator.NAME:
+			return new TaskNameComparator();
+		case edu.worcester.cs499summer2012.task.Comparator.COMPLETION:
+			return new TaskCompletionComparator();
+		case edu.worcester.cs499summer2012.task.Comparator.PRIORITY:
+			return new TaskPriorityComparator();
+		case edu.worcester.cs499summer2012.task.Comparator.CATEGORY:
+			return new TaskCategoryComparator();
+		case edu.worcester.cs499summer2012.task.Comparator.DATE_DUE:
+			// Reversing the order also moves tasks with no due date to the
+			// other end, so flip the placement up front to keep it
+			return new TaskDateDueComparator(setting.isNullsFirst() != setting.isDescending());
+		case edu.worcester.cs499summer2012.task.Comparator.DATE_CREATED:
+			return new TaskDateCreatedComparator();
+		case edu.worcester.cs499summer2012.task.Comparator.DATE_MODIFIED:
+			return new TaskDateModifiedComparator();
+		default:
+			return null;
+		}
+	}
+	
+	/**
+	 * Compares two tasks with each enabled comparator in turn, until one of
+	 * them orders the tasks.
+	 * @param lhs the first task
+	 * @param rhs the second task
+	 * @return the result of the first comparator that does not return 0, or
+	 *         0 if all of them do
+	 */
+	public int compare(Task lhs, Task rhs) {
+		for (int i = 0; i < signs.length; i++) {
+			int result = comparators.get(i).compare(lhs, rhs);
+			if (result != 0)
+				return result * signs[i];
+		}
+		return 0;
+	}
+}
@@ -29,9 +29,23 @@ import edu.worcester.cs499summer2012.task.Task;
  */
 public class TaskDateDueComparator implements Comparator<Task> {
 	
+	private final int no_date;
+	
+	public TaskDateDueComparator() {
+		this(false);
+	}
+	
+	/**
+	 * @param nulls_first true to order tasks with no due date before those 
+	 *        with a due date
+	 */
+	public TaskDateDueComparator(boolean nulls_first) {
+		no_date = nulls_first ? -1 : 1;
+	}
+	
 	/**
 	 * Compares two tasks by their due dates. Tasks with no due date are ordered
-	 * after those with a due date.
+	 * after those with a due date, unless created with nulls_first.
 	 * @param lhs the first task
 	 * @param rhs the second task
 	 * @return A negative value if the first task is due first, a positive
@@ -43,7 +57,7 @@ public class TaskDateDueComparator implements Comparator<Task> {
 			// Case 1: lhs has no due date
 			if (rhs.hasDateDue()) {
 				// Case 1a: rhs has a due date and is ordered first
-				return 1;
+				return no_date;
 			} else {
 				// Case 2a: rhs has no due date and they are equal
 				return 0;
@@ -53,7 +67,7 @@ public class TaskDateDueComparator implements Comparator<Task> {
 			// Case 2: lhs has a due date
 			if (!rhs.hasDateDue()) {
 				// Case 2a: rhs has no due date and is ordered second
-				return -1;
+				return -no_date;
 			}
 			else {
 				// Case 2b: rhs has a due date
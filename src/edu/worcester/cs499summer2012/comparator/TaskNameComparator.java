@@ -19,7 +19,9 @@
 
 package edu.worcester.cs499summer2012.comparator;
 
+import java.text.Collator;
 import java.util.Comparator;
+import java.util.Locale;
 
 import edu.worcester.cs499summer2012.task.Task;
 
@@ -29,8 +31,38 @@ import edu.worcester.cs499summer2012.task.Task;
  */
 public class TaskNameComparator implements Comparator<Task> {
 	
+	// Shared so the collation keys cached in the tasks stay valid across 
+	// comparator instances
+	private static Collator shared_collator;
+	private static Locale shared_locale;
+	
+	private final Collator collator;
+	
+	/**
+	 * Creates a comparator for the current default locale. The collator is
+	 * resolved here, once, so a comparator keeps its order if the locale
+	 * changes; create a new one to follow the new locale.
+	 */
+	public TaskNameComparator() {
+		collator = getCollator();
+	}
+	
+	/**
+	 * Returns the collator of the default locale, replacing the shared one 
+	 * if the locale has changed.
+	 */
+	private static synchronized Collator getCollator() {
+		Locale locale = Locale.getDefault();
+		if (shared_collator == null || !locale.equals(shared_locale)) {
+			shared_collator = Collator.getInstance(locale);
+			shared_locale = locale;
+		}
+		return shared_collator;
+	}
+	
 	/**
-	 * Compares two tasks by the lexographical order of their names.
+	 * Compares two tasks by the order of their names in the user's locale.
+	 * Uses the collation keys cached in the tasks.
 	 * @param lhs the first task
 	 * @param rhs the second task
 	 * @return A negative value if the first task is ordered first, a positive
@@ -38,6 +70,6 @@ public class TaskNameComparator implements Comparator<Task> {
 	 *         same name.
 	 */	
 	public int compare(Task lhs, Task rhs) {
-		return lhs.getName().compareTo(rhs.getName());
+		return lhs.getNameKey(collator).compareTo(rhs.getNameKey(collator));
 	}
 }
\ No newline at end of file
@@ -0,0 +1,390 @@
+/*
+ * TaskSortKeys.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.comparator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import edu.worcester.cs499summer2012.task.Task;
+
+/**
+ * Auto sort using precomputed sort keys. Every task is encoded into two 
+ * longs once, and the sort compares only those, giving the same order as 
+ * TaskAutoComparator:
+ *     primary   = completed flag | no due date flag | due date
+ *     secondary = inverted priority | inverted creation date
+ * Dates are offset and clamped to 60 bits, which covers every date a task
+ * can have.
+ */
+public final class TaskSortKeys {
+	
+	private static final long DATE_OFFSET = 1L << 59;
+	private static final long DATE_MASK = (1L << 60) - 1;
+	
+	private static final long COMPLETED_FLAG = 1L << 62;
+	private static final long NO_DUE_DATE_FLAG = 1L << 61;
+	private static final int PRIORITY_SHIFT = 60;
+	
+	// Runs shorter than this are insertion sorted
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+	
+	// Lists shorter than this are sorted on the calling thread only, so 
+	// the usual lists never wake other processors. The value is a guess, 
+	// it has not been measured on a multicore device
+	private static final int PARALLEL_THRESHOLD = 8192;
+	
+	private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+	
+	// Created on the first parallel sort, threads die with the app
+	private static ExecutorService executor;
+	
+	private TaskSortKeys() {
+	}
+	
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(PROCESSORS - 1, new ThreadFactory() {
+				
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "TaskSortKeys");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+	
+	private static long encodeDate(long date) {
+		long value = date + DATE_OFFSET;
+		if (value < 0)
+			return 0;
+		if (value > DATE_MASK)
+			return DATE_MASK;
+		return value;
+	}
+	
+	/**
+	 * Encodes completion status and due date. Uncompleted tasks come first,
+	 * then tasks with a due date, earliest first.
+	 */
+	public static long primaryKey(boolean is_completed, boolean has_date_due, long date_due) {
+		long key = is_completed ? COMPLETED_FLAG : 0;
+		if (has_date_due)
+			key |= encodeDate(date_due);
+		else
+			key |= NO_DUE_DATE_FLAG;
+		return key;
+	}
+	
+	/**
+	 * Encodes priority and creation date. Higher priorities come first, then
+	 * newer tasks.
+	 */
+	public static long secondaryKey(int priority, long date_created) {
+		if (priority < Task.TRIVIAL)
+			priority = Task.TRIVIAL;
+		else if (priority > Task.URGENT)
+			priority = Task.URGENT;
+		
+		long rank = Task.URGENT - priority;
+		return (rank << PRIORITY_SHIFT) 
+				| (DATE_MASK - encodeDate(date_created));
+	}
+	
+	public static long primaryKey(Task task) {
+		return primaryKey(task.isCompleted(), task.hasDateDue(), task.getDateDue());
+	}
+	
+	public static long secondaryKey(Task task) {
+		return secondaryKey(task.getPriority(), task.getDateCreated());
+	}
+	
+	/**
+	 * @return the completion status encoded in a primary key
+	 */
+	public static boolean isCompleted(long primary) {
+		return (primary & COMPLETED_FLAG) != 0;
+	}
+	
+	/**
+	 * @return whether a primary key has a due date
+	 */
+	public static boolean hasDateDue(long primary) {
+		return (primary & NO_DUE_DATE_FLAG) == 0;
+	}
+	
+	/**
+	 * @return the due date encoded in a primary key, clamped to the key range
+	 */
+	public static long getDateDue(long primary) {
+		return (primary & DATE_MASK) - DATE_OFFSET;
+	}
+	
+	/**
+	 * @return the priority encoded in a secondary key
+	 */
+	public static int getPriority(long secondary) {
+		return Task.URGENT - (int) (secondary >>> PRIORITY_SHIFT);
+	}
+	
+	/**
+	 * Sorts a list of tasks in auto sort order. The sort is stable, tasks 
+	 * with equal keys keep their relative order.
+	 * @param tasks the tasks to sort in place
+	 */
+	public static void sort(List<Task> tasks) {
+		sort(tasks, new long[tasks.size()], new long[tasks.size()]);
+	}
+	
+	/**
+	 * Sorts a list of tasks in auto sort order and hands back the keys, so 
+	 * callers can reuse them instead of reading the task fields again.
+	 * @param tasks the tasks to sort in place
+	 * @param primary filled with the primary key of each task, in sorted 
+	 *        order; must be as long as the list
+	 * @param secondary filled with the secondary key of each task, in sorted
+	 *        order; must be as long as the list
+	 */
+	public static void sort(List<Task> tasks, long[] primary, long[] secondary) {
+		int size = tasks.size();
+		Task[] array = tasks.toArray(new Task[size]);
+		for (int i = 0; i < size; i++) {
+			primary[i] = primaryKey(array[i]);
+			secondary[i] = secondaryKey(array[i]);
+		}
+		if (size < 2)
+			return;
+		
+		int[] order = sortedOrder(primary, secondary);
+		long[] unsorted_primary = primary.clone();
+		long[] unsorted_secondary = secondary.clone();
+		for (int i = 0; i < size; i++) {
+			tasks.set(i, array[order[i]]);
+			primary[i] = unsorted_primary[order[i]];
+			secondary[i] = unsorted_secondary[order[i]];
+		}
+	}
+	
+	/**
+	 * Returns the indexes of the keys in ascending key order. The sort is 
+	 * stable, equal keys keep their relative order. Large arrays are sorted
+	 * in chunks on all processors, the result is the same either way.
+	 * @param primary the primary keys
+	 * @param secondary the secondary keys, same length as primary
+	 * @return the sorted indexes
+	 */
+	public static int[] sortedOrder(long[] primary, long[] secondary) {
+		int size = primary.length;
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++)
+			order[i] = i;
+		
+		int[] buffer = new int[size];
+		if (size < PARALLEL_THRESHOLD || PROCESSORS < 2)
+			mergeSort(primary, secondary, order, buffer, 0, size);
+		else
+			parallelMergeSort(primary, secondary, order, buffer);
+		return order;
+	}
+	
+	/**
+	 * Returns the indexes of the k smallest keys in ascending key order, the
+	 * same indexes sortedOrder() would put first. Keeps a sorted buffer of 
+	 * at most k indexes, so this costs O(n log k) comparisons.
+	 * @param primary the primary keys
+	 * @param secondary the secondary keys, same length as primary
+	 * @param k the maximum number of indexes to return
+	 * @return the first k sorted indexes
+	 */
+	public static int[] firstOrder(long[] primary, long[] secondary, int k) {
+		int size = primary.length;
+		if (k > size)
+			k = size;
+		if (k <= 0)
+			return new int[0];
+		
+		int[] selected = new int[k];
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			// Full and not ordered before the last selected index, skip it
+			if (count == k && compare(primary, secondary, i, selected[k - 1]) >= 0)
+				continue;
+			
+			// Insert after all selected indexes with equal keys, keeps it stable
+			int low = 0;
+			int high = count;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (compare(primary, secondary, selected[middle], i) <= 0)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			
+			int end = count < k ? count++ : k - 1;
+			System.arraycopy(selected, low, selected, low + 1, end - low);
+			selected[low] = i;
+		}
+		return selected;
+	}
+	
+	/**
+	 * Sorts one chunk of order per processor in parallel, then merges 
+	 * neighboring chunks in parallel until one run is left. The calling 
+	 * thread takes part and returns only when the whole array is sorted. 
+	 * TaskListAdapter sorts long lists on a background thread for that.
+	 */
+	private static void parallelMergeSort(final long[] primary, final long[] secondary, 
+			final int[] order, final int[] buffer) {
+		int size = order.length;
+		int chunks = Math.min(PROCESSORS, size / (PARALLEL_THRESHOLD / 2));
+		int[] bounds = new int[chunks + 1];
+		for (int i = 0; i <= chunks; i++)
+			bounds[i] = (int) ((long) size * i / chunks);
+		
+		ArrayList<Runnable> tasks = new ArrayList<Runnable>(chunks);
+		for (int i = 0; i < chunks; i++) {
+			final int from = bounds[i];
+			final int to = bounds[i + 1];
+			tasks.add(new Runnable() {
+				
+				@Override
+				public void run() {
+					mergeSort(primary, secondary, order, buffer, from, to);
+				}
+			});
+		}
+		runAll(tasks);
+		
+		// Merge pairs of neighboring runs until only one is left
+		for (int width = 1; width < chunks; width *= 2) {
+			tasks.clear();
+			for (int i = 0; i + width < chunks; i += 2 * width) {
+				final int from = bounds[i];
+				final int middle = bounds[i + width];
+				final int to = bounds[Math.min(i + 2 * width, chunks)];
+				tasks.add(new Runnable() {
+					
+					@Override
+					public void run() {
+						merge(primary, secondary, order, buffer, from, middle, to);
+					}
+				});
+			}
+			runAll(tasks);
+		}
+	}
+	
+	/**
+	 * Runs the first task on the calling thread and the rest on the 
+	 * executor, and waits until all of them are done. The tasks share the
+	 * arrays being sorted, so an interrupt does not stop the wait; it is 
+	 * passed on once all tasks are done.
+	 */
+	private static void runAll(List<Runnable> tasks) {
+		ExecutorService executor = getExecutor();
+		ArrayList<Future<?>> futures = new ArrayList<Future<?>>(tasks.size());
+		for (int i = 1; i < tasks.size(); i++)
+			futures.add(executor.submit(tasks.get(i)));
+		
+		tasks.get(0).run();
+		
+		boolean interrupted = false;
+		for (Future<?> future : futures) {
+			while (true) {
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					throw new RuntimeException(e.getCause());
+				}
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+	
+	/**
+	 * Compares the keys at two indexes.
+	 * @return a negative number, 0 or a positive number if the keys of a are
+	 *         less than, equal to or greater than the keys of b
+	 */
+	static int compare(long[] primary, long[] secondary, int a, int b) {
+		if (primary[a] != primary[b])
+			return primary[a] < primary[b] ? -1 : 1;
+		if (secondary[a] != secondary[b])
+			return secondary[a] < secondary[b] ? -1 : 1;
+		return 0;
+	}
+	
+	/**
+	 * Stable merge sort of order[from, to), using buffer as scratch space.
+	 */
+	static void mergeSort(long[] primary, long[] secondary, int[] order, int[] buffer, 
+			int from, int to) {
+		if (to - from <= INSERTION_SORT_THRESHOLD) {
+			for (int i = from + 1; i < to; i++) {
+				int index = order[i];
+				int j = i - 1;
+				while (j >= from && compare(primary, secondary, order[j], index) > 0) {
+					order[j + 1] = order[j];
+					j--;
+				}
+				order[j + 1] = index;
+			}
+			return;
+		}
+		
+		int middle = (from + to) >>> 1;
+		mergeSort(primary, secondary, order, buffer, from, middle);
+		mergeSort(primary, secondary, order, buffer, middle, to);
+		merge(primary, secondary, order, buffer, from, middle, to);
+	}
+	
+	/**
+	 * Merges the sorted runs order[from, middle) and order[middle, to).
+	 */
+	static void merge(long[] primary, long[] secondary, int[] order, int[] buffer, 
+			int from, int middle, int to) {
+		// Already in order, nothing to merge
+		if (compare(primary, secondary, order[middle - 1], order[middle]) <= 0)
+			return;
+		
+		System.arraycopy(order, from, buffer, from, to - from);
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; i++) {
+			if (right >= to || (left < middle 
+					&& compare(primary, secondary, buffer[left], buffer[right]) <= 0))
+				order[i] = buffer[left++];
+			else
+				order[i] = buffer[right++];
+		}
+	}
+}
@@ -20,16 +20,18 @@
 
 package edu.worcester.cs499summer2012.database;
 
+import java.util.ArrayList;
 import java.util.GregorianCalendar;
+import java.util.List;
 
 import edu.worcester.cs499summer2012.task.Category;
 import edu.worcester.cs499summer2012.task.Comparator;
 
-import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
-import android.graphics.Color;
+import android.util.Log;
 
 /**
  * Creates SQLite table for storing tasks to a database. DO NOT call this class directly
@@ -37,10 +39,19 @@ import android.graphics.Color;
  * @author Dhimitraq Jorgji, Jonathan Hasenzahl
  */
 public class DatabaseHandler extends SQLiteOpenHelper {
+	
+	private static final String TAG = "DatabaseHandler";
 
-	// Database Version
-	private static final int DATABASE_VERSION = 8;
-	private static final int RC1_DATABASE = 7;
+	// Database Version
+	private static final int DATABASE_VERSION = 14;
+	private static final int RC1_DATABASE = 7;
+	private static final int RELEASE_DATABASE = 8;
+	private static final int CHANGES_DATABASE = 9;
+	private static final int FLAG_INDEX_DATABASE = 10;
+	private static final int UNIQUE_CATEGORY_DATABASE = 11;
+	private static final int SORT_DIRECTION_DATABASE = 12;
+	private static final int DROP_COMPLETION_INDEX_DATABASE = 13;
+	private static final int DROP_CHANGES_DATABASE = 14;
 
 	// Database Name
 	public static final String DATABASE_NAME = "TaskButler.db";
@@ -50,6 +61,19 @@ public class DatabaseHandler extends SQLiteOpenHelper {
 	public static final String TABLE_CATEGORIES = "categories";
 	public static final String TABLE_COMPARATORS = "comparators";
 	public static final String TABLE_BACKUP = "tasks_backup";
+	public static final String TABLE_CHANGES = "task_changes"; // Dropped in version 14
+	public static final String TABLE_CHANGE_CONSUMERS = "change_consumers"; // Dropped in version 14
+	
+	// Suffix of the tables kept from a database older than Release Candidate 1
+	static final String PRE_RC1_SUFFIX = "_pre_rc1";
+	
+	// Color of the "No category" category, transparent white
+	private static final int NO_CATEGORY_COLOR = 0x00FFFFFF;
+	
+	// Index names
+	public static final String INDEX_TASKS_COMPLETION = "tasks_completion_index"; // Dropped in version 13
+	public static final String INDEX_TASKS_CATEGORY = "tasks_category_index";
+	public static final String INDEX_CATEGORIES_NAME = "categories_name_index";
 
 	// Column names
 	public static final String KEY_ID = "id";										 // INTEGER PRIMARY KEY
@@ -66,11 +90,13 @@ public class DatabaseHandler extends SQLiteOpenHelper {
 	public static final String KEY_MODIFICATION_DATE = "modificationDate"; 			 // DATETIME
 	public static final String KEY_DUE_DATE = "dueDate"; 							 // DATETIME
 	public static final String KEY_NOTES = "notes"; 								 // TEXT, can be null
-	public static final String KEY_COLOR = "color"; 								 // INTEGER, used in category table
+	public static final String KEY_COLOR = "color"; 								 // INTEGER, used in category table
 	public static final String KEY_UPDATED = "updated";								 // DATETIME
 	public static final String KEY_G_ID = "gID";									 // STRING
 	public static final String KEY_ENABLED = "enabled";								 // INTEGER, indirectly boolean, used in comparators table
 	public static final String KEY_ORDER = "list_order";							 // INTEGER, used in comparators table
+	public static final String KEY_DIRECTION = "direction";							 // INTEGER, used in comparators table
+	public static final String KEY_NULLS = "nulls";									 // INTEGER, used in comparators table
 	
 	// Deprecated column names
 	@Deprecated
@@ -78,13 +104,13 @@ public class DatabaseHandler extends SQLiteOpenHelper {
 	@Deprecated
 	public static final String KEY_FINAL_DUE_DATE = "finalDueDate";					 // DATETIME
 	@Deprecated
-	public static final String KEY_STOP_REPEATING_DATE = "stopRepeatingDate"; 		 // DATETIME
+	public static final String KEY_STOP_REPEATING_DATE = "stopRepeatingDate"; 		 // DATETIME
 
 	public DatabaseHandler(Context context) {
 		super(context, DATABASE_NAME, null, DATABASE_VERSION);
 	}
 
-	private void createTasksTable(SQLiteDatabase db) {
+	private static void createTasksTable(SchemaDatabase db) {
 		String create_tasks_table = "CREATE TABLE " + TABLE_TASKS + "("
 				+ KEY_ID + " INTEGER PRIMARY KEY,"
 				+ KEY_NAME + " TEXT,"
@@ -105,7 +131,20 @@ public class DatabaseHandler extends SQLiteOpenHelper {
 		db.execSQL(create_tasks_table);
 	}
 	
-	private void createCategoriesTable(SQLiteDatabase db) {
+	/**
+	 * Indexes category alone or with completion (category lists, category 
+	 * bar). Completion is not indexed on its own: most tasks are unfinished,
+	 * so an index leading with it would select most of the table and cost 
+	 * a row lookup per task, slower than the table scan.
+	 */
+	private static void createTaskIndexes(SchemaDatabase db) {
+		db.execSQL("CREATE INDEX " + INDEX_TASKS_CATEGORY + " ON " 
+				+ TABLE_TASKS + "(" 
+				+ KEY_CATEGORY + ","
+				+ KEY_COMPLETION + ")");
+	}
+	
+	private static void createCategoriesTable(SchemaDatabase db) {
 		String create_categories_table = "CREATE TABLE " + TABLE_CATEGORIES + "(" 
 				+ KEY_ID + " INTEGER PRIMARY KEY,"
 				+ KEY_NAME + " TEXT,"
@@ -116,15 +155,49 @@ public class DatabaseHandler extends SQLiteOpenHelper {
 		db.execSQL(create_categories_table);
 		
 		// Create first entry of categories table
-		ContentValues values = new ContentValues();
-		values.put(KEY_ID, Category.NO_CATEGORY);
-		values.put(KEY_NAME, "No category");
-		values.put(KEY_COLOR, Color.parseColor("#00FFFFFF"));
-		values.put(KEY_UPDATED, GregorianCalendar.getInstance().getTimeInMillis());
-		db.insert(TABLE_CATEGORIES, null, values);		
+		db.execSQL("INSERT INTO " + TABLE_CATEGORIES + "("
+				+ KEY_ID + ","
+				+ KEY_NAME + ","
+				+ KEY_COLOR + ","
+				+ KEY_UPDATED + ") VALUES ("
+				+ Category.NO_CATEGORY + ","
+				+ "'No category',"
+				+ NO_CATEGORY_COLOR + ","
+				+ GregorianCalendar.getInstance().getTimeInMillis() + ")");
 	}
 	
-	private void createComparatorsTable(SQLiteDatabase db) {
+	/**
+	 * Makes category names unique regardless of case. Lookups by name and 
+	 * duplicate checks on insert both go through this index.
+	 */
+	private static void createCategoryIndexes(SchemaDatabase db) {
+		db.execSQL("CREATE UNIQUE INDEX " + INDEX_CATEGORIES_NAME + " ON " 
+				+ TABLE_CATEGORIES + "(" 
+				+ KEY_NAME + " COLLATE NOCASE)");
+	}
+	
+	/**
+	 * Merges categories whose names only differ in case into the oldest one 
+	 * of them, so the unique name index can be created. Tasks of the merged 
+	 * categories are moved to the remaining category.
+	 */
+	private static void mergeDuplicateCategories(SchemaDatabase db) {
+		String duplicates = "SELECT c1." + KEY_ID + " FROM " + TABLE_CATEGORIES + " c1"
+				+ " WHERE EXISTS (SELECT 1 FROM " + TABLE_CATEGORIES + " c2"
+				+ " WHERE c2." + KEY_NAME + " = c1." + KEY_NAME + " COLLATE NOCASE"
+				+ " AND c2." + KEY_ID + " < c1." + KEY_ID + ")";
+		
+		db.execSQL("UPDATE " + TABLE_TASKS + " SET " + KEY_CATEGORY + " = ("
+				+ "SELECT MIN(c2." + KEY_ID + ") FROM " + TABLE_CATEGORIES + " c1, " 
+				+ TABLE_CATEGORIES + " c2"
+				+ " WHERE c1." + KEY_ID + " = " + TABLE_TASKS + "." + KEY_CATEGORY
+				+ " AND c2." + KEY_NAME + " = c1." + KEY_NAME + " COLLATE NOCASE)"
+				+ " WHERE " + KEY_CATEGORY + " IN (" + duplicates + ")");
+		db.execSQL("DELETE FROM " + TABLE_CATEGORIES 
+				+ " WHERE " + KEY_ID + " IN (" + duplicates + ")");
+	}
+	
+	private static void createComparatorsTable(SchemaDatabase db) {
 		String create_comparators_table = "CREATE TABLE " + TABLE_COMPARATORS + "(" 
 				+ KEY_ID + " INTEGER PRIMARY KEY,"
 				+ KEY_NAME + " TEXT,"
@@ -134,131 +207,265 @@ public class DatabaseHandler extends SQLiteOpenHelper {
 		db.execSQL(create_comparators_table);
 
 		// Create all entries of comparators table
-		ContentValues values = new ContentValues();
-		values.put(KEY_ID, Comparator.NAME);
-		values.put(KEY_NAME, "Task name");
-		values.put(KEY_ENABLED, 0);
-		values.put(KEY_ORDER, 0);
-		db.insert(TABLE_COMPARATORS, null, values);
-		values = new ContentValues();
-		values.put(KEY_ID, Comparator.COMPLETION);
-		values.put(KEY_NAME, "Completion status");
-		values.put(KEY_ENABLED, 0);
-		values.put(KEY_ORDER, 1);
-		db.insert(TABLE_COMPARATORS, null, values);
-		values = new ContentValues();
-		values.put(KEY_ID, Comparator.PRIORITY);
-		values.put(KEY_NAME, "Priority");
-		values.put(KEY_ENABLED, 0);
-		values.put(KEY_ORDER, 2);
-		db.insert(TABLE_COMPARATORS, null, values);
-		values = new ContentValues();
-		values.put(KEY_ID, Comparator.CATEGORY);
-		values.put(KEY_NAME, "Category");
-		values.put(KEY_ENABLED, 0);
-		values.put(KEY_ORDER, 3);
-		db.insert(TABLE_COMPARATORS, null, values);
-		values = new ContentValues();
-		values.put(KEY_ID, Comparator.DATE_DUE);
-		values.put(KEY_NAME, "Due date");
-		values.put(KEY_ENABLED, 0);
-		values.put(KEY_ORDER, 4);
-		db.insert(TABLE_COMPARATORS, null, values);
-		values = new ContentValues();
-		values.put(KEY_ID, Comparator.DATE_CREATED);
-		values.put(KEY_NAME, "Date created");
-		values.put(KEY_ENABLED, 0);
-		values.put(KEY_ORDER, 5);
-		db.insert(TABLE_COMPARATORS, null, values);
-		values = new ContentValues();
-		values.put(KEY_ID, Comparator.DATE_MODIFIED);
-		values.put(KEY_NAME, "Date modified");
-		values.put(KEY_ENABLED, 0);
-		values.put(KEY_ORDER, 6);
-		db.insert(TABLE_COMPARATORS, null, values);
+		insertComparator(db, Comparator.NAME, "Task name", 0);
+		insertComparator(db, Comparator.COMPLETION, "Completion status", 1);
+		insertComparator(db, Comparator.PRIORITY, "Priority", 2);
+		insertComparator(db, Comparator.CATEGORY, "Category", 3);
+		insertComparator(db, Comparator.DATE_DUE, "Due date", 4);
+		insertComparator(db, Comparator.DATE_CREATED, "Date created", 5);
+		insertComparator(db, Comparator.DATE_MODIFIED, "Date modified", 6);
+	}
+	
+	private static void insertComparator(SchemaDatabase db, int id, String name, int order) {
+		db.execSQL("INSERT INTO " + TABLE_COMPARATORS + "("
+				+ KEY_ID + ","
+				+ KEY_NAME + ","
+				+ KEY_ENABLED + ","
+				+ KEY_ORDER + ") VALUES ("
+				+ id + ","
+				+ "'" + name + "',"
+				+ "0,"
+				+ order + ")");
+	}
+	
+	/**
+	 * Adds the sort direction and null placement columns to the comparators
+	 * table. Existing comparators keep their default order.
+	 */
+	private static void addComparatorSortColumns(SchemaDatabase db) {
+		db.execSQL("ALTER TABLE " + TABLE_COMPARATORS + " ADD COLUMN " 
+				+ KEY_DIRECTION + " INTEGER DEFAULT " + Comparator.ASCENDING);
+		db.execSQL("ALTER TABLE " + TABLE_COMPARATORS + " ADD COLUMN " 
+				+ KEY_NULLS + " INTEGER DEFAULT " + Comparator.NULLS_LAST);
+	}
+	
+	/**
+	 * Drops the change journal of versions 9 to 13 and the triggers that 
+	 * filled it. Nothing read the journal back, so every write to the tasks
+	 * and categories tables paid for a second insert.
+	 */
+	private static void dropChangeTables(SchemaDatabase db) {
+		String[] tables = { TABLE_TASKS, TABLE_CATEGORIES };
+		String[] events = { "insert", "update", "delete" };
+		for (String table : tables)
+			for (String event : events)
+				db.execSQL("DROP TRIGGER IF EXISTS " + table + "_" + event + "_change");
+		
+		db.execSQL("DROP TABLE IF EXISTS " + TABLE_CHANGES);
+		db.execSQL("DROP TABLE IF EXISTS " + TABLE_CHANGE_CONSUMERS);
 	}
 	
 	// Creating Table
 	@Override
 	public void onCreate(SQLiteDatabase db) {
+		create(new AndroidSchemaDatabase(db));
+	}
+	
+	/**
+	 * Creates the current schema in an empty database.
+	 */
+	static void create(SchemaDatabase db) {
 		createTasksTable(db);
+		createTaskIndexes(db);
 		createCategoriesTable(db);
+		createCategoryIndexes(db);
 		createComparatorsTable(db);
+		addComparatorSortColumns(db);
 	}
 
+	/**
+	 * Builds the new tasks table and fills it with a single copy of the 
+	 * Release Candidate 1 rows. The old table is renamed out of the way 
+	 * rather than copied to a backup first, which only rewrites the schema.
+	 */
+	private static void rebuildTasksTable(SchemaDatabase db) {
+		String columns = KEY_ID + ","
+				+ KEY_NAME + ","
+				+ KEY_COMPLETION + ","
+				+ KEY_PRIORITY + ","
+				+ KEY_CATEGORY + ","
+				+ KEY_HAS_DUE_DATE + ","
+				+ KEY_HAS_FINAL_DUE_DATE + ","
+				+ KEY_IS_REPEATING + ","
+				+ KEY_REPEAT_TYPE + ","
+				+ KEY_REPEAT_INTERVAL + ","
+				+ KEY_CREATION_DATE + ","
+				+ KEY_MODIFICATION_DATE + ","
+				+ KEY_DUE_DATE + ","
+				+ KEY_G_ID + ","
+				+ KEY_NOTES;
+		
+		db.execSQL("ALTER TABLE " + TABLE_TASKS + " RENAME TO " + TABLE_BACKUP);
+		createTasksTable(db);
+		db.execSQL("INSERT INTO " + TABLE_TASKS + "(" + columns + ") SELECT " 
+				+ columns + " FROM " + TABLE_BACKUP);
+		db.execSQL("DROP TABLE " + TABLE_BACKUP);
+	}
+	
+	/**
+	 * Replaces the tables of a database older than Release Candidate 1, 
+	 * which the upgrade steps cannot start from, with the current schema. 
+	 * The rows of the tasks and categories tables are copied over in the 
+	 * columns the old and new tables share, and the old tables are kept 
+	 * with PRE_RC1_SUFFIX appended to their names.
+	 */
+	static void replacePreRc1Tables(SchemaDatabase db) {
+		String[] tables = { TABLE_TASKS, TABLE_CATEGORIES, TABLE_COMPARATORS };
+		for (String table : tables) {
+			if (db.getColumns(table).isEmpty())
+				continue;
+			db.execSQL("DROP TABLE IF EXISTS " + table + PRE_RC1_SUFFIX);
+			db.execSQL("ALTER TABLE " + table + " RENAME TO " + table + PRE_RC1_SUFFIX);
+		}
+		
+		create(db);
+		
+		// Duplicate rows, such as a second "No category", are skipped
+		copySharedColumns(db, TABLE_CATEGORIES);
+		copySharedColumns(db, TABLE_TASKS);
+		db.execSQL("UPDATE " + TABLE_TASKS + " SET " + KEY_CATEGORY + " = " 
+				+ Category.NO_CATEGORY + " WHERE " + KEY_CATEGORY + " NOT IN ("
+				+ "SELECT " + KEY_ID + " FROM " + TABLE_CATEGORIES + ")"
+				+ " OR " + KEY_CATEGORY + " IS NULL");
+	}
+	
+	private static void copySharedColumns(SchemaDatabase db, String table) {
+		List<String> shared = db.getColumns(table + PRE_RC1_SUFFIX);
+		shared.retainAll(db.getColumns(table));
+		if (shared.isEmpty())
+			return;
+		
+		StringBuilder columns = new StringBuilder();
+		for (String column : shared) {
+			if (columns.length() > 0)
+				columns.append(',');
+			columns.append(column);
+		}
+		db.execSQL("INSERT OR IGNORE INTO " + table + "(" + columns + ") SELECT " 
+				+ columns + " FROM " + table + PRE_RC1_SUFFIX);
+	}
+	
+	/**
+	 * Upgrade steps, in version order. Add a new step here (and bump 
+	 * DATABASE_VERSION) for every schema change.
+	 */
+	static final Migration[] MIGRATIONS = {
+		new Migration(RELEASE_DATABASE) {
+			@Override
+			void apply(SchemaDatabase db) {
+				// Convert Release Candidate 1 tables to current tables.
+				// New: Task table, comparators table are upgraded
+				// No change: Categories table do not need upgrade
+				rebuildTasksTable(db);
+				db.execSQL("DROP TABLE " + TABLE_COMPARATORS);
+				createComparatorsTable(db);
+			}
+		},
+		new Migration(CHANGES_DATABASE) {
+			@Override
+			void apply(SchemaDatabase db) {
+				// New: Change journal and its triggers, dropped again in 
+				// version 14, so there is nothing left to create
+			}
+		},
+		new Migration(FLAG_INDEX_DATABASE) {
+			@Override
+			void apply(SchemaDatabase db) {
+				// New: Task category index
+				createTaskIndexes(db);
+			}
+		},
+		new Migration(UNIQUE_CATEGORY_DATABASE) {
+			@Override
+			void apply(SchemaDatabase db) {
+				// New: Unique case insensitive category name index
+				mergeDuplicateCategories(db);
+				createCategoryIndexes(db);
+			}
+		},
+		new Migration(SORT_DIRECTION_DATABASE) {
+			@Override
+			void apply(SchemaDatabase db) {
+				// New: Comparator sort direction and null placement
+				addComparatorSortColumns(db);
+			}
+		},
+		new Migration(DROP_COMPLETION_INDEX_DATABASE) {
+			@Override
+			void apply(SchemaDatabase db) {
+				// Removed: Completion index, the table scan is cheaper
+				db.execSQL("DROP INDEX IF EXISTS " + INDEX_TASKS_COMPLETION);
+			}
+		},
+		new Migration(DROP_CHANGES_DATABASE) {
+			@Override
+			void apply(SchemaDatabase db) {
+				// Removed: Change journal and its triggers, it had no reader
+				dropChangeTables(db);
+			}
+		}
+	};
+
 	// Upgrading database
 	@Override
 	public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-		if (db.getVersion() == RC1_DATABASE) {
-			// Convert Release Candidate 1 tables to current tables.
-			// New: Task table, comparators table are upgraded
-			// No change: Categories table do not need upgrade
-			
-			String createBackupTable = "CREATE TEMPORARY TABLE "
-					+ TABLE_BACKUP + "("
-					+ KEY_ID + " INTEGER PRIMARY KEY,"
-					+ KEY_NAME + " TEXT,"
-					+ KEY_COMPLETION + " INTEGER,"
-					+ KEY_PRIORITY + " INTEGER,"
-					+ KEY_CATEGORY + " INTEGER,"
-					+ KEY_HAS_DUE_DATE + " INTEGER,"
-					+ KEY_HAS_FINAL_DUE_DATE + " INTEGER,"
-					+ KEY_IS_REPEATING + " INTEGER,"
-					+ KEY_REPEAT_TYPE + " INTEGER,"
-					+ KEY_REPEAT_INTERVAL + " INTEGER,"
-					+ KEY_CREATION_DATE + " DATETIME,"
-					+ KEY_MODIFICATION_DATE + " DATETIME,"
-					+ KEY_DUE_DATE + " DATETIME,"
-					+ KEY_G_ID + " TEXT,"
-					+ KEY_NOTES + " TEXT)";
-			
-			String copyToBackup = "INSERT INTO "
-					+ TABLE_BACKUP + " SELECT "
-					+ KEY_ID + ","
-					+ KEY_NAME + ","
-					+ KEY_COMPLETION + ","
-					+ KEY_PRIORITY + ","
-					+ KEY_CATEGORY + ","
-					+ KEY_HAS_DUE_DATE + ","
-					+ KEY_HAS_FINAL_DUE_DATE + ","
-					+ KEY_IS_REPEATING + ","
-					+ KEY_REPEAT_TYPE + ","
-					+ KEY_REPEAT_INTERVAL + ","
-					+ KEY_CREATION_DATE + ","
-					+ KEY_MODIFICATION_DATE + ","
-					+ KEY_DUE_DATE + ","
-					+ KEY_G_ID + ","
-					+ KEY_NOTES + " FROM "
-					+ TABLE_TASKS;
-			
-			String copyToTasksTable = "INSERT INTO "
-					+ TABLE_TASKS + " SELECT "
-					+ KEY_ID + ","
-					+ KEY_NAME + ","
-					+ KEY_COMPLETION + ","
-					+ KEY_PRIORITY + ","
-					+ KEY_CATEGORY + ","
-					+ KEY_HAS_DUE_DATE + ","
-					+ KEY_HAS_FINAL_DUE_DATE + ","
-					+ KEY_IS_REPEATING + ","
-					+ KEY_REPEAT_TYPE + ","
-					+ KEY_REPEAT_INTERVAL + ","
-					+ KEY_CREATION_DATE + ","
-					+ KEY_MODIFICATION_DATE + ","
-					+ KEY_DUE_DATE + ","
-					+ KEY_G_ID + ","
-					+ KEY_NOTES + " FROM "
-					+ TABLE_BACKUP;
-			
-			db.execSQL(createBackupTable);
-			db.execSQL(copyToBackup);
-			db.execSQL("DROP TABLE " + TABLE_TASKS);
-			createTasksTable(db);
-			db.execSQL(copyToTasksTable);
-			db.execSQL("DROP TABLE " + TABLE_BACKUP);
+		SchemaDatabase schema = new AndroidSchemaDatabase(db);
+		
+		// The upgrade path starts at Release Candidate 1. Older tables lack
+		// columns the first step copies, so they are replaced.
+		if (oldVersion < RC1_DATABASE) {
+			replacePreRc1Tables(schema);
+			Log.w(TAG, "Replaced the tables of database version " + oldVersion 
+					+ ", the old tables are kept as *" + PRE_RC1_SUFFIX);
+			return;
+		}
+		
+		// Each step runs in its own transaction, nested in the one the open 
+		// helper holds for the whole upgrade. A failing step therefore rolls 
+		// back the entire upgrade, and the version is never bumped past a 
+		// half-applied schema.
+		for (Migration migration : MIGRATIONS) {
+			if (migration.getVersion() <= oldVersion || migration.getVersion() > newVersion)
+				continue;
 			
-			db.execSQL("DROP TABLE " + TABLE_COMPARATORS);
-			createComparatorsTable(db);
+			db.beginTransaction();
+			try {
+				migration.apply(schema);
+				db.setTransactionSuccessful();
+			} finally {
+				db.endTransaction();
+			}
+		}
+	}
+	
+	/**
+	 * Runs the schema steps on the SQLiteDatabase of the open helper.
+	 */
+	private static final class AndroidSchemaDatabase implements SchemaDatabase {
+		
+		private final SQLiteDatabase db;
+		
+		AndroidSchemaDatabase(SQLiteDatabase db) {
+			this.db = db;
+		}
+		
+		@Override
+		public void execSQL(String sql) {
+			db.execSQL(sql);
+		}
+		
+		@Override
+		public List<String> getColumns(String table) {
+			List<String> columns = new ArrayList<String>();
+			Cursor cursor = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+			try {
+				int name = cursor.getColumnIndexOrThrow("name");
+				while (cursor.moveToNext())
+					columns.add(cursor.getString(name));
+			} finally {
+				cursor.close();
+			}
+			return columns;
 		}
 	}
 }
@@ -0,0 +1,52 @@
+/*
+ * Migration.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.database;
+
+/**
+ * A single step of the database upgrade path. Each step brings the schema 
+ * from the version directly below its target version up to the target 
+ * version. DatabaseHandler runs the steps in order, each in its own 
+ * transaction.
+ */
+abstract class Migration {
+	
+	private final int version;
+	
+	/**
+	 * @param version the database version this step upgrades to
+	 */
+	Migration(int version) {
+		this.version = version;
+	}
+	
+	/**
+	 * @return the database version this step upgrades to
+	 */
+	int getVersion() {
+		return version;
+	}
+	
+	/**
+	 * Applies the schema changes of this step. Called inside a transaction, 
+	 * so implementations should not open or end one themselves.
+	 * @param db the database to upgrade
+	 */
+	abstract void apply(SchemaDatabase db);
+}
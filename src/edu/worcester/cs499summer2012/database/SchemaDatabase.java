@@ -0,0 +1,43 @@
+/*
+ * SchemaDatabase.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.database;
+
+import java.util.List;
+
+/**
+ * The part of a database the schema steps of DatabaseHandler use. On the 
+ * device it is backed by the SQLiteDatabase of the open helper; tests back 
+ * it with any other SQLite connection.
+ */
+interface SchemaDatabase {
+	
+	/**
+	 * Runs a single SQL statement that returns no rows.
+	 * @param sql the statement
+	 */
+	void execSQL(String sql);
+	
+	/**
+	 * @param table a table name
+	 * @return a new list of the column names of the table, in table order, 
+	 *         empty if the table does not exist
+	 */
+	List<String> getColumns(String table);
+}
@@ -0,0 +1,140 @@
+/*
+ * TaskRowMapper.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.database;
+
+import java.util.HashMap;
+
+import android.database.Cursor;
+
+import edu.worcester.cs499summer2012.task.Task;
+
+/**
+ * Reads tasks from the rows of a cursor over the tasks table. The column 
+ * indexes are looked up once, when the mapper is created, so the cursor 
+ * may select the columns in any order. Equal names read by one mapper 
+ * share a single String.
+ */
+final class TaskRowMapper {
+	
+	/**
+	 * Every column of a task except the notes, for queries of many tasks.
+	 * Tasks read from these columns have their notes unloaded.
+	 */
+	static final String[] LIST_COLUMNS = {
+		DatabaseHandler.KEY_ID,
+		DatabaseHandler.KEY_NAME, 
+		DatabaseHandler.KEY_COMPLETION, 
+		DatabaseHandler.KEY_PRIORITY, 
+		DatabaseHandler.KEY_CATEGORY,
+		DatabaseHandler.KEY_HAS_DUE_DATE,
+		DatabaseHandler.KEY_HAS_FINAL_DUE_DATE,
+		DatabaseHandler.KEY_IS_REPEATING,
+		DatabaseHandler.KEY_REPEAT_TYPE,
+		DatabaseHandler.KEY_REPEAT_INTERVAL,
+		DatabaseHandler.KEY_CREATION_DATE,
+		DatabaseHandler.KEY_MODIFICATION_DATE, 
+		DatabaseHandler.KEY_DUE_DATE,
+		DatabaseHandler.KEY_G_ID
+	};
+	
+	private final int id;
+	private final int name;
+	private final int completion;
+	private final int priority;
+	private final int category;
+	private final int has_due_date;
+	private final int has_final_due_date;
+	private final int is_repeating;
+	private final int repeat_type;
+	private final int repeat_interval;
+	private final int creation_date;
+	private final int modification_date;
+	private final int due_date;
+	private final int g_id;
+	private final int notes;
+	
+	private final HashMap<String, String> names = new HashMap<String, String>();
+	
+	/**
+	 * @param cursor a cursor that selects every column of the tasks table,
+	 *        or at least LIST_COLUMNS
+	 */
+	TaskRowMapper(Cursor cursor) {
+		id = cursor.getColumnIndexOrThrow(DatabaseHandler.KEY_ID);
+		name = cursor.getColumnIndexOrThrow(DatabaseHandler.KEY_NAME);
+		completion = cursor.getColumnIndexOrThrow(DatabaseHandler.KEY_COMPLETION);
+		priority = cursor.getColumnIndexOrThrow(DatabaseHandler.KEY_PRIORITY);
+		category = cursor.getColumnIndexOrThrow(DatabaseHandler.KEY_CATEGORY);
+		has_due_date = cursor.getColumnIndexOrThrow(DatabaseHandler.KEY_HAS_DUE_DATE);
+		has_final_due_date = cursor.getColumnIndexOrThrow(DatabaseHandler.KEY_HAS_FINAL_DUE_DATE);
+		is_repeating = cursor.getColumnIndexOrThrow(DatabaseHandler.KEY_IS_REPEATING);
+		repeat_type = cursor.getColumnIndexOrThrow(DatabaseHandler.KEY_REPEAT_TYPE);
+		repeat_interval = cursor.getColumnIndexOrThrow(DatabaseHandler.KEY_REPEAT_INTERVAL);
+		creation_date = cursor.getColumnIndexOrThrow(DatabaseHandler.KEY_CREATION_DATE);
+		modification_date = cursor.getColumnIndexOrThrow(DatabaseHandler.KEY_MODIFICATION_DATE);
+		due_date = cursor.getColumnIndexOrThrow(DatabaseHandler.KEY_DUE_DATE);
+		g_id = cursor.getColumnIndexOrThrow(DatabaseHandler.KEY_G_ID);
+		notes = cursor.getColumnIndex(DatabaseHandler.KEY_NOTES);
+	}
+	
+	/**
+	 * Reads the current row into a new task. The notes are left unloaded if
+	 * the cursor does not select them.
+	 * @param cursor the cursor, moved to the row to read
+	 * @return a new task with the values of the current row
+	 */
+	Task map(Cursor cursor) {
+		Task task = new Task(
+				cursor.getInt(id), 
+				share(cursor.getString(name)), 
+				cursor.getInt(completion) > 0, 
+				cursor.getInt(priority),
+				cursor.getInt(category),
+				cursor.getInt(has_due_date) > 0,
+				cursor.getInt(has_final_due_date) > 0,
+				cursor.getInt(is_repeating) > 0,
+				cursor.getInt(repeat_type),
+				cursor.getInt(repeat_interval), 
+				cursor.getLong(creation_date), 
+				cursor.getLong(modification_date), 
+				cursor.getLong(due_date), 
+				cursor.getString(g_id),
+				notes >= 0 ? cursor.getString(notes) : null);
+		if (notes < 0)
+			task.discardNotes();
+		return task;
+	}
+	
+	/**
+	 * @return the first equal name this mapper has seen, so repeated names 
+	 *         are kept in memory only once
+	 */
+	private String share(String name) {
+		if (name == null)
+			return null;
+		
+		String shared = names.get(name);
+		if (shared == null) {
+			names.put(name, name);
+			shared = name;
+		}
+		return shared;
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * TaskTable.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.database;
+
+import java.util.List;
+
+import android.database.Cursor;
+
+import edu.worcester.cs499summer2012.comparator.TaskSortKeys;
+import edu.worcester.cs499summer2012.task.Task;
+
+/**
+ * A read-only table of tasks stored as parallel primitive arrays, one entry
+ * per row. Meant for code that scans many tasks but only needs a few of 
+ * their fields, like the alarm rescan and the homescreen widget; it reads 
+ * the cursor straight into the arrays and sorts on them without creating
+ * Task objects. Use TasksDataSource.getTask() for the rows that need one.
+ */
+public final class TaskTable {
+	
+	// Bits of the flags column
+	private static final int COMPLETED = 1;
+	private static final int HAS_DATE_DUE = 2;
+	private static final int IS_REPEATING = 4;
+	
+	/**
+	 * The columns a TaskTable is read from, in cursor order.
+	 */
+	static final String[] COLUMNS = {
+		DatabaseHandler.KEY_ID,
+		DatabaseHandler.KEY_NAME,
+		DatabaseHandler.KEY_COMPLETION,
+		DatabaseHandler.KEY_PRIORITY,
+		DatabaseHandler.KEY_CATEGORY,
+		DatabaseHandler.KEY_HAS_DUE_DATE,
+		DatabaseHandler.KEY_IS_REPEATING,
+		DatabaseHandler.KEY_CREATION_DATE,
+		DatabaseHandler.KEY_DUE_DATE
+	};
+	
+	private final int size;
+	private final int[] ids;
+	private final String[] names;
+	private final byte[] priorities;
+	private final int[] categories;
+	private final byte[] flags;
+	private final long[] dates_created;
+	private final long[] dates_due;
+	
+	private TaskTable(int size) {
+		this.size = size;
+		ids = new int[size];
+		names = new String[size];
+		priorities = new byte[size];
+		categories = new int[size];
+		flags = new byte[size];
+		dates_created = new long[size];
+		dates_due = new long[size];
+	}
+	
+	/**
+	 * Reads every row of a cursor over COLUMNS. The cursor is left open.
+	 * @param cursor
+	 */
+	TaskTable(Cursor cursor) {
+		this(cursor.getCount());
+		
+		int row = 0;
+		if (cursor.moveToFirst()) {
+			do {
+				ids[row] = cursor.getInt(0);
+				names[row] = cursor.getString(1);
+				priorities[row] = (byte) cursor.getInt(3);
+				categories[row] = cursor.getInt(4);
+				
+				int f = 0;
+				if (cursor.getInt(2) > 0)
+					f |= COMPLETED;
+				if (cursor.getInt(5) > 0)
+					f |= HAS_DATE_DUE;
+				if (cursor.getInt(6) > 0)
+					f |= IS_REPEATING;
+				flags[row] = (byte) f;
+				
+				dates_created[row] = cursor.getLong(7);
+				dates_due[row] = cursor.getLong(8);
+				row++;
+			} while (row < size && cursor.moveToNext());
+		}
+	}
+	
+	/**
+	 * Copies the fields of a list of tasks, one row per task in list order.
+	 * @param tasks
+	 */
+	TaskTable(List<Task> tasks) {
+		this(tasks.size());
+		
+		for (int row = 0; row < size; row++) {
+			Task task = tasks.get(row);
+			ids[row] = task.getID();
+			names[row] = task.getName();
+			priorities[row] = (byte) task.getPriority();
+			categories[row] = task.getCategory();
+			
+			int f = 0;
+			if (task.isCompleted())
+				f |= COMPLETED;
+			if (task.hasDateDue())
+				f |= HAS_DATE_DUE;
+			if (task.isRepeating())
+				f |= IS_REPEATING;
+			flags[row] = (byte) f;
+			
+			dates_created[row] = task.getDateCreated();
+			dates_due[row] = task.getDateDue();
+		}
+	}
+	
+	/**************************************************************************
+	 * Getters                                                                *
+	 **************************************************************************/
+	
+	/**
+	 * @return the number of rows
+	 */
+	public int size() {
+		return size;
+	}
+	
+	public int getID(int row) {
+		return ids[row];
+	}
+	
+	public String getName(int row) {
+		return names[row];
+	}
+	
+	public int getPriority(int row) {
+		return priorities[row];
+	}
+	
+	public int getCategory(int row) {
+		return categories[row];
+	}
+	
+	public long getDateCreated(int row) {
+		return dates_created[row];
+	}
+	
+	public long getDateDue(int row) {
+		return dates_due[row];
+	}
+	
+	public boolean isCompleted(int row) {
+		return (flags[row] & COMPLETED) != 0;
+	}
+	
+	public boolean hasDateDue(int row) {
+		return (flags[row] & HAS_DATE_DUE) != 0;
+	}
+	
+	public boolean isRepeating(int row) {
+		return (flags[row] & IS_REPEATING) != 0;
+	}
+	
+	/**
+	 * Same as Task.isPastDue(), for one row.
+	 * @param row
+	 * @param now the current time
+	 * @return true if the row has a due date before now and is not completed
+	 */
+	public boolean isPastDue(int row, long now) {
+		return (flags[row] & (HAS_DATE_DUE | COMPLETED)) == HAS_DATE_DUE 
+				&& dates_due[row] < now;
+	}
+	
+	/**************************************************************************
+	 * Sorting                                                                *
+	 **************************************************************************/
+	
+	/**
+	 * Returns the first k rows in auto sort order without sorting the whole
+	 * table.
+	 * @param k the maximum number of rows to return
+	 * @return the first k sorted row indexes
+	 */
+	public int[] first(int k) {
+		long[] primary = new long[size];
+		long[] secondary = new long[size];
+		fillSortKeys(primary, secondary);
+		return TaskSortKeys.firstOrder(primary, secondary, k);
+	}
+	
+	private void fillSortKeys(long[] primary, long[] secondary) {
+		for (int row = 0; row < size; row++) {
+			primary[row] = TaskSortKeys.primaryKey(isCompleted(row), hasDateDue(row), dates_due[row]);
+			secondary[row] = TaskSortKeys.secondaryKey(priorities[row], dates_created[row]);
+		}
+	}
+}
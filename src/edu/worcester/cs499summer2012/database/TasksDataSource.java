@@ -20,15 +20,24 @@
 package edu.worcester.cs499summer2012.database;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
 
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.Intent;
 import android.database.Cursor;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.support.v4.util.LruCache;
+import edu.worcester.cs499summer2012.comparator.TaskCompositeComparator;
 import edu.worcester.cs499summer2012.task.Category;
 import edu.worcester.cs499summer2012.task.Comparator;
 import edu.worcester.cs499summer2012.task.Task;
+import edu.worcester.cs499summer2012.task.TaskSnapshot;
 
 /**
  * Wrapper for the database handler. Gives some CRUD (Create, Read, Update and 
@@ -43,6 +52,21 @@ public class TasksDataSource {
 	private DatabaseHandler handler;
 	private static TasksDataSource instance;
 	
+	// Built from the comparators table, dropped whenever that table changes
+	private static volatile TaskCompositeComparator custom_comparator;
+	private static volatile Locale custom_comparator_locale;
+	private static volatile String custom_order_by;
+	
+	// Bumped after every write, lets callers tell if cached query results 
+	// are still current. Starts at the current time so a version carried in
+	// an intent from an earlier process does not match this one's
+	private static final AtomicLong data_version = new AtomicLong(System.currentTimeMillis());
+	
+	// Recently read tasks by id, emptied whenever the tasks table changes
+	private static final int TASK_CACHE_SIZE = 64;
+	private static final LruCache<Integer, TaskSnapshot> task_cache = 
+			new LruCache<Integer, TaskSnapshot>(TASK_CACHE_SIZE);
+	
 	private TasksDataSource(){
 
 	}
@@ -67,94 +91,182 @@ public class TasksDataSource {
 	private void close() {
 		handler.close();
 	}
+	
+	/**
+	 * Drops everything cached from the database. Call this after the 
+	 * database file has been replaced, e.g. by restoring a backup.
+	 */
+	public static void invalidateCaches() {
+		custom_comparator = null;
+		custom_order_by = null;
+		tasksChanged();
+	}
+	
+	/**
+	 * Bumps the data version and empties the task cache. Called after every
+	 * write to the tasks table.
+	 */
+	private static void tasksChanged() {
+		synchronized (task_cache) {
+			data_version.incrementAndGet();
+			task_cache.evictAll();
+		}
+	}
+	
+	/**
+	 * Returns the current data version. The version changes after every 
+	 * write to the tasks, categories or comparators tables, so a query 
+	 * result stays current for as long as the version read before the query
+	 * is unchanged.
+	 * @return the current data version
+	 */
+	public static long getDataVersion() {
+		return data_version.get();
+	}
+	
+	/**
+	 * @return the number of tasks in the task cache
+	 */
+	public static int getTaskCacheSize() {
+		return task_cache.size();
+	}
+	
+	/**
+	 * Empties the task cache to free memory. Unlike invalidateCaches(), 
+	 * cached query results stay valid.
+	 */
+	public static void trimMemory() {
+		task_cache.evictAll();
+	}
+	
+	/**
+	 * @return the number of getTask() calls answered from the task cache
+	 */
+	public static int getTaskCacheHits() {
+		return task_cache.hitCount();
+	}
+	
+	/**
+	 * @return the number of getTask() calls that had to query the database
+	 */
+	public static int getTaskCacheMisses() {
+		return task_cache.missCount();
+	}
 
 	/*********************************************************************
 	 * Task																 *
 	 *********************************************************************/
 
 	/**
-	 * Query a task using its id
+	 * Puts a task in an intent, along with its id and the current data 
+	 * version. The receiver gets it back with getTask(Intent).
+	 * @param intent
+	 * @param task
+	 */
+	public static void putTask(Intent intent, Task task) {
+		intent.putExtra(Task.EXTRA_TASK_ID, task.getID());
+		intent.putExtra(Task.EXTRA_TASK, task);
+		intent.putExtra(Task.EXTRA_DATA_VERSION, data_version.get());
+	}
+
+	/**
+	 * Gets the task passed in an intent. The task in the intent is used as
+	 * long as nothing was written since it was put there, otherwise the 
+	 * task is queried using the id in the intent. The intent keeps its own
+	 * copy, so callers are free to change the returned task. The returned 
+	 * task always has its notes loaded.
+	 * @param intent
+	 * @return the task, or null if the intent has no task id or the task no
+	 *         longer exists
+	 */
+	public Task getTask(Intent intent) {
+		Task task = intent.getParcelableExtra(Task.EXTRA_TASK);
+		if (task != null && intent.getLongExtra(Task.EXTRA_DATA_VERSION, 0) == data_version.get()) {
+			// Tasks from the list come without notes. Put them back with the
+			// notes, so the next call for this intent does not read them again
+			if (!task.hasNotesLoaded()) {
+				loadNotes(task);
+				putTask(intent, task);
+			}
+			return new TaskSnapshot(task).toTask();
+		}
+		
+		int id = intent.getIntExtra(Task.EXTRA_TASK_ID, 0);
+		if (id == 0)
+			return null;
+		return getTask(id);
+	}
+
+	/**
+	 * Query a task using its id. Recently read tasks are served from a 
+	 * cache; every call still returns a new Task.
 	 * @param id
 	 * @return
 	 */
 	public Task getTask(int id) {
+		TaskSnapshot cached = task_cache.get(id);
+		if (cached != null)
+			return cached.toTask();
+		
+		long version = data_version.get();
 		open();
-		Cursor cursor = db.query(DatabaseHandler.TABLE_TASKS, new String[] { 
-				DatabaseHandler.KEY_ID,
-				DatabaseHandler.KEY_NAME, 
-				DatabaseHandler.KEY_COMPLETION, 
-				DatabaseHandler.KEY_PRIORITY, 
-				DatabaseHandler.KEY_CATEGORY,
-				DatabaseHandler.KEY_HAS_DUE_DATE,
-				DatabaseHandler.KEY_HAS_FINAL_DUE_DATE,
-				DatabaseHandler.KEY_IS_REPEATING,
-				DatabaseHandler.KEY_REPEAT_TYPE,
-				DatabaseHandler.KEY_REPEAT_INTERVAL,
-				DatabaseHandler.KEY_CREATION_DATE,
-				DatabaseHandler.KEY_MODIFICATION_DATE, 
-				DatabaseHandler.KEY_DUE_DATE,
-				DatabaseHandler.KEY_G_ID,
-				DatabaseHandler.KEY_NOTES }, 
+		Cursor cursor = db.query(DatabaseHandler.TABLE_TASKS, null, 
 				DatabaseHandler.KEY_ID + " = " + id,
 				null, null, null, null, null);
-		if (cursor.moveToFirst()) {
-			Task task = new Task(
-					cursor.getInt(0), 
-					cursor.getString(1), 
-					cursor.getInt(2) > 0, 
-					cursor.getInt(3),
-					cursor.getInt(4),
-					cursor.getInt(5) > 0,
-					cursor.getInt(6) > 0,
-					cursor.getInt(7) > 0,
-					cursor.getInt(8),
-					cursor.getInt(9), 
-					cursor.getLong(10), 
-					cursor.getLong(11), 
-					cursor.getLong(12), 
-					cursor.getString(13),
-					cursor.getString(14));
-			close();
-			cursor.close();
-			return task;
-		} else {
-			close();
-			cursor.close();
-			return null;
+		Task task = null;
+		if (cursor.moveToFirst())
+			task = new TaskRowMapper(cursor).map(cursor);
+		cursor.close();
+		close();
+		
+		// Don't cache what a write may have changed during the query
+		if (task != null) {
+			synchronized (task_cache) {
+				if (data_version.get() == version)
+					task_cache.put(id, new TaskSnapshot(task));
+			}
 		}
+		return task;
 	}
 
 	public ArrayList<Task> getAllTasks() {
+		return getTasks(true, null);
+	}
+	
+	/**
+	 * Gets a list of Tasks from the database. The notes are not loaded, 
+	 * see loadNotes().
+	 * @param all_tasks True will return all tasks, false will return only
+	 *                  unfinished tasks.
+	 * @param category Only get tasks of this category. If null, get all tasks.
+	 * @return an ArrayList of tasks
+	 */
+	public ArrayList<Task> getTasks(boolean all_tasks, Category category) {
+		return getTasks(all_tasks, category, null, 0);
+	}
+	
+	/**
+	 * Gets a sorted list of Tasks from the database. The notes are not 
+	 * loaded, see loadNotes().
+	 * @param all_tasks True will return all tasks, false will return only
+	 *                  unfinished tasks.
+	 * @param category Only get tasks of this category. If null, get all tasks.
+	 * @param order_by An ORDER BY clause without the keywords, e.g. from
+	 *                 getCustomOrderBy(). If null, the tasks are unsorted.
+	 * @param limit The maximum number of tasks to return, or 0 for no limit.
+	 * @return an ArrayList of tasks
+	 */
+	public ArrayList<Task> getTasks(boolean all_tasks, Category category, String order_by, int limit) {
 		ArrayList<Task> taskList = new ArrayList<Task>();
 
-		// Select All Query
-		String selectQuery = "SELECT * FROM " + DatabaseHandler.TABLE_TASKS;
-
 		open();
-		Cursor cursor = db.rawQuery(selectQuery, null);
+		Cursor cursor = queryTasks(all_tasks, category, order_by, limit);
 
 		// looping through all rows and adding to list
 		if (cursor.moveToFirst()) {
+			TaskRowMapper mapper = new TaskRowMapper(cursor);
 			do {
-				Task task = new Task(
-						cursor.getInt(0), 
-						cursor.getString(1), 
-						cursor.getInt(2) > 0, 
-						cursor.getInt(3),
-						cursor.getInt(4),
-						cursor.getInt(5) > 0,
-						cursor.getInt(6) > 0,
-						cursor.getInt(7) > 0,
-						cursor.getInt(8),
-						cursor.getInt(9), 
-						cursor.getLong(10), 
-						cursor.getLong(11), 
-						cursor.getLong(12), 
-						cursor.getString(13),
-						cursor.getString(14));
-
-				// Adding task to list
-				taskList.add(task);
+				taskList.add(mapper.map(cursor));
 			} while (cursor.moveToNext());
 		}
 
@@ -165,65 +277,81 @@ public class TasksDataSource {
 	}
 	
 	/**
-	 * Gets a list of Tasks from the database.
-	 * @param all_tasks True will return all tasks, false will return only
-	 *                  unfinished tasks.
-	 * @param category Only get tasks of this category. If null, get all tasks.
-	 * @return an ArrayList of tasks
+	 * @return the ids of all tasks, read without loading the tasks
 	 */
-	public ArrayList<Task> getTasks(boolean all_tasks, Category category) {
-		ArrayList<Task> taskList = new ArrayList<Task>();
-
+	public int[] getTaskIDs() {
+		open();
+		Cursor cursor = db.query(DatabaseHandler.TABLE_TASKS, 
+				new String[] { DatabaseHandler.KEY_ID }, 
+				null, null, null, null, null);
+		int[] ids = new int[cursor.getCount()];
+		for (int i = 0; i < ids.length && cursor.moveToNext(); i++)
+			ids[i] = cursor.getInt(0);
+		cursor.close();
+		close();
+		return ids;
+	}
+	
+	/**
+	 * Reads the notes of a task that was loaded without them. Does nothing
+	 * if the notes are already loaded.
+	 * @param task
+	 */
+	public void loadNotes(Task task) {
+		if (task.hasNotesLoaded())
+			return;
+		
+		open();
+		Cursor cursor = db.query(DatabaseHandler.TABLE_TASKS, 
+				new String[] { DatabaseHandler.KEY_NOTES }, 
+				DatabaseHandler.KEY_ID + " = " + task.getID(),
+				null, null, null, null, null);
+		task.setNotes(cursor.moveToFirst() ? cursor.getString(0) : null);
+		cursor.close();
+		close();
+	}
+	
+	/**
+	 * Runs the task list query of getTasks(). The database must be open.
+	 * @return a cursor over the LIST_COLUMNS of the matching tasks
+	 */
+	private Cursor queryTasks(boolean all_tasks, Category category, String order_by, int limit) {
 		StringBuilder builder = new StringBuilder();
-		builder.append("SELECT * FROM " + DatabaseHandler.TABLE_TASKS);
 		
 		if (!all_tasks)
-			builder.append(" WHERE " + DatabaseHandler.KEY_COMPLETION + " = 0");
+			builder.append(DatabaseHandler.KEY_COMPLETION + " = 0");
 		
 		if (category != null) {
-			if (all_tasks)
-				builder.append(" WHERE ");
-			else
+			if (!all_tasks)
 				builder.append(" AND ");
 			
 			builder.append(DatabaseHandler.KEY_CATEGORY + " = " + category.getID());
 		}
 		
-		// Select All Query
-		String selectQuery = builder.toString();
+		return db.query(DatabaseHandler.TABLE_TASKS, TaskRowMapper.LIST_COLUMNS, 
+				builder.length() > 0 ? builder.toString() : null, null, 
+				null, null, order_by, limit > 0 ? String.valueOf(limit) : null);
+	}
 
+	/**
+	 * Reads tasks into a TaskTable instead of a list of Task objects. Only
+	 * the columns in TaskTable.COLUMNS are read.
+	 * @param all_tasks True will return all tasks, false will return only
+	 *                  unfinished tasks.
+	 * @param order_by An ORDER BY clause without the keywords, e.g. from
+	 *                 getCustomOrderBy(). If null, the rows are unsorted.
+	 * @param limit The maximum number of rows to return, or 0 for no limit.
+	 * @return a TaskTable of the tasks
+	 */
+	public TaskTable getTaskTable(boolean all_tasks, String order_by, int limit) {
 		open();
-		Cursor cursor = db.rawQuery(selectQuery, null);
-
-		// looping through all rows and adding to list
-		if (cursor.moveToFirst()) {
-			do {
-				Task task = new Task(
-						cursor.getInt(0), 
-						cursor.getString(1), 
-						cursor.getInt(2) > 0, 
-						cursor.getInt(3),
-						cursor.getInt(4),
-						cursor.getInt(5) > 0,
-						cursor.getInt(6) > 0,
-						cursor.getInt(7) > 0,
-						cursor.getInt(8),
-						cursor.getInt(9), 
-						cursor.getLong(10), 
-						cursor.getLong(11), 
-						cursor.getLong(12), 
-						cursor.getString(13),
-						cursor.getString(14));
-
-				// Adding task to list
-				taskList.add(task);
-			} while (cursor.moveToNext());
-		}
-
+		Cursor cursor = db.query(DatabaseHandler.TABLE_TASKS, TaskTable.COLUMNS, 
+				all_tasks ? null : DatabaseHandler.KEY_COMPLETION + " = 0", null, 
+				null, null, order_by, limit > 0 ? String.valueOf(limit) : null);
+		TaskTable table = new TaskTable(cursor);
 		cursor.close();
 		close();
-		// return task list
-		return taskList;
+		return table;
 	}
 
 	/**
@@ -251,13 +379,11 @@ public class TasksDataSource {
 		}
 	}
 	/**
-	 * Insert a task to the tasks table
+	 * Copies every column of a task except its id into a ContentValues.
+	 * @param values
 	 * @param task
 	 */
-	public void addTask(Task task) {
-		open();
-		ContentValues values = new ContentValues();
-		values.put(DatabaseHandler.KEY_ID, task.getID());
+	private void putTaskValues(ContentValues values, Task task) {
 		values.put(DatabaseHandler.KEY_NAME, task.getName());
 		values.put(DatabaseHandler.KEY_COMPLETION, task.isCompleted());
 		values.put(DatabaseHandler.KEY_PRIORITY, task.getPriority());
@@ -271,11 +397,25 @@ public class TasksDataSource {
 		values.put(DatabaseHandler.KEY_MODIFICATION_DATE, task.getDateModified());
 		values.put(DatabaseHandler.KEY_DUE_DATE, task.getDateDue());
 		values.put(DatabaseHandler.KEY_G_ID, task.getgID());
-		values.put(DatabaseHandler.KEY_NOTES, task.getNotes());
+		// Notes that were never loaded are left as they are
+		if (task.hasNotesLoaded())
+			values.put(DatabaseHandler.KEY_NOTES, task.getNotes());
+	}
+
+	/**
+	 * Insert a task to the tasks table
+	 * @param task
+	 */
+	public void addTask(Task task) {
+		open();
+		ContentValues values = new ContentValues();
+		values.put(DatabaseHandler.KEY_ID, task.getID());
+		putTaskValues(values, task);
 
 		// Inserting Row
 		db.insert(DatabaseHandler.TABLE_TASKS, null, values);
 		close();
+		tasksChanged();
 	}
 	/**
 	 * Update the database information about a task
@@ -285,28 +425,46 @@ public class TasksDataSource {
 	public int updateTask(Task task) {
 		open();
 		ContentValues values = new ContentValues();
-		values.put(DatabaseHandler.KEY_NAME, task.getName());
-		values.put(DatabaseHandler.KEY_COMPLETION, task.isCompleted());
-		values.put(DatabaseHandler.KEY_PRIORITY, task.getPriority());
-		values.put(DatabaseHandler.KEY_CATEGORY, task.getCategory());
-		values.put(DatabaseHandler.KEY_HAS_DUE_DATE, task.hasDateDue());
-		values.put(DatabaseHandler.KEY_HAS_FINAL_DUE_DATE, task.hasFinalDateDue());
-		values.put(DatabaseHandler.KEY_IS_REPEATING, task.isRepeating());
-		values.put(DatabaseHandler.KEY_REPEAT_TYPE, task.getRepeatType());
-		values.put(DatabaseHandler.KEY_REPEAT_INTERVAL, task.getRepeatInterval());
-		values.put(DatabaseHandler.KEY_CREATION_DATE, task.getDateCreated());
-		values.put(DatabaseHandler.KEY_MODIFICATION_DATE, task.getDateModified());
-		values.put(DatabaseHandler.KEY_DUE_DATE, task.getDateDue());
-		values.put(DatabaseHandler.KEY_G_ID, task.getgID());
-		values.put(DatabaseHandler.KEY_NOTES, task.getNotes());
+		putTaskValues(values, task);
 
 		// updating row
 		int i = db.update(DatabaseHandler.TABLE_TASKS, values, 
 				DatabaseHandler.KEY_ID + " = ?", new String[] { String.valueOf(task.getID()) });
 		close();
+		tasksChanged();
 		return i;		
 	}
 
+	/**
+	 * Update the database information about several tasks at once. All rows
+	 * are written in a single transaction, so a bulk change pays for one
+	 * journal commit instead of one per task.
+	 * @param tasks
+	 * @return number of rows affected
+	 */
+	public int updateTasks(Collection<Task> tasks) {
+		int i = 0;
+		open();
+		db.beginTransaction();
+		try {
+			ContentValues values = new ContentValues();
+			String[] args = new String[1];
+			for (Task task : tasks) {
+				values.clear();
+				putTaskValues(values, task);
+				args[0] = String.valueOf(task.getID());
+				i += db.update(DatabaseHandler.TABLE_TASKS, values,
+						DatabaseHandler.KEY_ID + " = ?", args);
+			}
+			db.setTransactionSuccessful();
+		} finally {
+			db.endTransaction();
+		}
+		close();
+		tasksChanged();
+		return i;
+	}
+
 	/**
 	 * Deletes a single task from the database
 	 * @param task
@@ -316,6 +474,7 @@ public class TasksDataSource {
 		db.delete(DatabaseHandler.TABLE_TASKS, 
 				DatabaseHandler.KEY_ID + " = " + task.getID(), null);
 		close();
+		tasksChanged();
 	}
 
 	/**
@@ -329,6 +488,7 @@ public class TasksDataSource {
 				DatabaseHandler.KEY_COMPLETION + " = 1 AND " +
 				DatabaseHandler.KEY_IS_REPEATING + " = 0", null);
 		close();
+		tasksChanged();
 		return i;
 	}
 
@@ -340,6 +500,7 @@ public class TasksDataSource {
 		open();
 		int i = db.delete(DatabaseHandler.TABLE_TASKS, null, null);
 		close();
+		tasksChanged();
 		return i;
 	}
 
@@ -353,10 +514,12 @@ public class TasksDataSource {
 	 ********************************************************/
 
 	/**
-	 * Insert Category in the categories table
+	 * Insert Category in the categories table. The unique name index rejects 
+	 * the insert if a category with the same name (ignoring case) exists.
 	 * @param c
+	 * @return true if the category was added, false if the name is taken
 	 */
-	public void addCategory(Category c){
+	public boolean addCategory(Category c){
 		open();
 		ContentValues values = new ContentValues();
 		values.put(DatabaseHandler.KEY_ID, c.getID());
@@ -364,8 +527,15 @@ public class TasksDataSource {
 		values.put(DatabaseHandler.KEY_COLOR, c.getColor());
 		values.put(DatabaseHandler.KEY_UPDATED, c.getUpdated());
 		// Inserting row
-		db.insert(DatabaseHandler.TABLE_CATEGORIES, null, values);
+		long row = db.insertWithOnConflict(DatabaseHandler.TABLE_CATEGORIES, null, 
+				values, SQLiteDatabase.CONFLICT_IGNORE);
 		close();
+		data_version.incrementAndGet();
+		
+		// Before ICS an ignored insert can return the last insert rowid 
+		// instead of -1, which is 0 on a fresh connection. Category ids 
+		// start at 1
+		return row > 0;
 	}
 
 	/**
@@ -379,12 +549,14 @@ public class TasksDataSource {
 		db.delete(DatabaseHandler.TABLE_CATEGORIES, 
 				DatabaseHandler.KEY_ID + " = " + c.getID(), null);
 		close();
+		data_version.incrementAndGet();
 	}
 
 	/**
-	 * Update the database information on an category
+	 * Update the database information on an category. Renaming to a name 
+	 * already taken by another category (ignoring case) updates nothing.
 	 * @param c
-	 * @return
+	 * @return the number of rows updated, 0 if the name is taken
 	 */
 	public int updateCategory(Category c){
 		open();
@@ -394,10 +566,12 @@ public class TasksDataSource {
 		values.put(DatabaseHandler.KEY_UPDATED, c.getUpdated());
 
 		// updating row
-		int i = db.update(DatabaseHandler.TABLE_CATEGORIES, values, 
-				DatabaseHandler.KEY_ID + " = " + c.getID(), null);
+		int i = db.updateWithOnConflict(DatabaseHandler.TABLE_CATEGORIES, values, 
+				DatabaseHandler.KEY_ID + " = " + c.getID(), null, 
+				SQLiteDatabase.CONFLICT_IGNORE);
 		
 		close();
+		data_version.incrementAndGet();
 		return i;
 	}
 
@@ -459,8 +633,8 @@ public class TasksDataSource {
 	}
 	
 	/**
-	 * Returns an existing category by its name. Returns null if the category
-	 * doesn't exist.
+	 * Returns an existing category by its name, ignoring case. Returns null 
+	 * if the category doesn't exist.
 	 * @param name The name of the category.
 	 * @return the category, or null if the category doesn't exist
 	 */
@@ -468,7 +642,7 @@ public class TasksDataSource {
 		// Select All Query
 		String selectQuery = "SELECT * FROM " + 
 				DatabaseHandler.TABLE_CATEGORIES + " WHERE " +
-				DatabaseHandler.KEY_NAME + " = ?";
+				DatabaseHandler.KEY_NAME + " = ? COLLATE NOCASE";
 		
 		open();
 		Category category = null;
@@ -539,7 +713,9 @@ public class TasksDataSource {
 				DatabaseHandler.KEY_ID,
 				DatabaseHandler.KEY_NAME,
 				DatabaseHandler.KEY_ENABLED,
-				DatabaseHandler.KEY_ORDER}, 
+				DatabaseHandler.KEY_ORDER,
+				DatabaseHandler.KEY_DIRECTION,
+				DatabaseHandler.KEY_NULLS}, 
 				DatabaseHandler.KEY_ID + " = " + id,
 				null, null, null, null);
 		if (cursor != null)
@@ -548,7 +724,9 @@ public class TasksDataSource {
 				cursor.getInt(0),
 				cursor.getString(1),
 				cursor.getInt(2) > 0,
-				cursor.getInt(3));
+				cursor.getInt(3),
+				cursor.getInt(4),
+				cursor.getInt(5));
 		
 		cursor.close();
 		close();
@@ -575,7 +753,9 @@ public class TasksDataSource {
 						cursor.getInt(0),
 						cursor.getString(1),
 						cursor.getInt(2) > 0,
-						cursor.getInt(3));
+						cursor.getInt(3),
+						cursor.getInt(4),
+						cursor.getInt(5));
 				// Add comparactor to array
 				comparators[c.getOrder()] = c;
 			} while (cursor.moveToNext());
@@ -598,12 +778,127 @@ public class TasksDataSource {
 		values.put(DatabaseHandler.KEY_NAME, c.getName());
 		values.put(DatabaseHandler.KEY_ENABLED, c.isEnabled());
 		values.put(DatabaseHandler.KEY_ORDER, c.getOrder());
+		values.put(DatabaseHandler.KEY_DIRECTION, c.getDirection());
+		values.put(DatabaseHandler.KEY_NULLS, c.getNulls());
 
 		// Update row
 		int i = db.update(DatabaseHandler.TABLE_COMPARATORS, values, 
 				DatabaseHandler.KEY_ID + " = " + c.getId(), null);
 		
 		close();
+		custom_comparator = null;
+		custom_order_by = null;
+		data_version.incrementAndGet();
 		return i;
-	}
+	}
+	
+	/**
+	 * Returns the comparator for custom sorting, chaining the enabled 
+	 * comparators in their configured order. The comparator is built once 
+	 * and reused until a comparator is updated.
+	 * @return the custom sort comparator
+	 */
+	public TaskCompositeComparator getCustomComparator() {
+		TaskCompositeComparator comparator = custom_comparator;
+		
+		// Name sorting resolves the collator of the locale once, so the 
+		// comparator is rebuilt after a locale change
+		Locale locale = Locale.getDefault();
+		if (comparator == null || !locale.equals(custom_comparator_locale)) {
+			comparator = new TaskCompositeComparator(getComparators());
+			custom_comparator_locale = locale;
+			custom_comparator = comparator;
+		}
+		return comparator;
+	}
+	
+	/**
+	 * Returns the ORDER BY clause equivalent to getCustomComparator(), for 
+	 * letting the database sort and limit task queries. Ties are broken by 
+	 * task ID.
+	 * @return the custom sort ORDER BY clause, without the keywords, or null
+	 *         if the custom sort orders by name
+	 */
+	public String getCustomOrderBy() {
+		String order_by = custom_order_by;
+		if (order_by == null) {
+			order_by = getOrderBy(getComparators());
+			
+			// An empty clause caches that there is none
+			custom_order_by = order_by != null ? order_by : "";
+		}
+		return order_by != null && order_by.length() > 0 ? order_by : null;
+	}
+	
+	/**
+	 * Returns the ORDER BY clause equivalent to a TaskCompositeComparator 
+	 * built from the same settings, on tasks in ID order. Names are not 
+	 * ordered by the database, because none of SQLite's collations match
+	 * the locale's java.text.Collator used by TaskNameComparator.
+	 * @param settings the comparator settings, highest sorting first
+	 * @return the ORDER BY clause, without the keywords, or null if an 
+	 *         enabled setting orders by name
+	 */
+	static String getOrderBy(List<Comparator> settings) {
+		StringBuilder builder = new StringBuilder();
+		for (Comparator c : settings) {
+			if (c == null || !c.isEnabled())
+				continue;
+			
+			// Direction of the comparator's default order
+			String asc = c.isDescending() ? " DESC" : " ASC";
+			String desc = c.isDescending() ? " ASC" : " DESC";
+			switch (c.getId()) {
+			case Comparator.NAME:
+				return null;
+			case Comparator.COMPLETION:
+				builder.append(DatabaseHandler.KEY_COMPLETION + asc + ",");
+				break;
+			case Comparator.PRIORITY:
+				builder.append(DatabaseHandler.KEY_PRIORITY + desc + ",");
+				break;
+			case Comparator.CATEGORY:
+				builder.append(DatabaseHandler.KEY_CATEGORY + asc + ",");
+				break;
+			case Comparator.DATE_DUE:
+				builder.append(DatabaseHandler.KEY_HAS_DUE_DATE 
+						+ (c.isNullsFirst() ? " ASC," : " DESC,"));
+				builder.append("CASE WHEN " + DatabaseHandler.KEY_HAS_DUE_DATE + " = 1 THEN " 
+						+ DatabaseHandler.KEY_DUE_DATE + " END" + asc + ",");
+				break;
+			case Comparator.DATE_CREATED:
+				builder.append(DatabaseHandler.KEY_CREATION_DATE + desc + ",");
+				break;
+			case Comparator.DATE_MODIFIED:
+				builder.append(DatabaseHandler.KEY_MODIFICATION_DATE + desc + ",");
+				break;
+			default:
+				break;
+			}
+		}
+		builder.append(DatabaseHandler.KEY_ID + " ASC");
+		return builder.toString();
+	}
+	
+	/**
+	 * Reads the first unfinished or all tasks in custom sort order into a 
+	 * TaskTable. The database sorts and limits the rows, unless the custom 
+	 * sort orders by name; then the tasks are sorted with 
+	 * getCustomComparator(), so names are in the same order as in the list.
+	 * @param all_tasks True will return all tasks, false will return only
+	 *                  unfinished tasks.
+	 * @param limit The maximum number of rows to return, or 0 for no limit.
+	 * @return a TaskTable of the tasks, in custom sort order
+	 */
+	public TaskTable getCustomSortedTaskTable(boolean all_tasks, int limit) {
+		String order_by = getCustomOrderBy();
+		if (order_by != null)
+			return getTaskTable(all_tasks, order_by, limit);
+		
+		ArrayList<Task> tasks = getTasks(all_tasks, null, DatabaseHandler.KEY_ID, 0);
+		Collections.sort(tasks, getCustomComparator());
+		if (limit > 0 && limit < tasks.size())
+			return new TaskTable(tasks.subList(0, limit));
+		return new TaskTable(tasks);
+	}
 }
\ No newline at end of file
@@ -88,9 +88,18 @@ public class TaskAlarm {
 	 * @param id id of task to retrieve task from SQLite database
 	 */
 	public void setAlarm(Context context, Task task){
+		setAlarm(context, task.getID(), task.getDateDue());
+	}
+
+	/**
+	 * Set a One Time Alarm for a task without loading it
+	 * @param context
+	 * @param id id of the task
+	 * @param date_due time the alarm goes off
+	 */
+	public void setAlarm(Context context, int id, long date_due){
 		AlarmManager am=(AlarmManager)context.getSystemService(Context.ALARM_SERVICE);
-		am.set(AlarmManager.RTC_WAKEUP, task.getDateDue(), 
-				getPendingIntent(context, task.getID()));
+		am.set(AlarmManager.RTC_WAKEUP, date_due, getPendingIntent(context, id));
 	}
 
 	/**
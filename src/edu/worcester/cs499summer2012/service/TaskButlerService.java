@@ -19,10 +19,9 @@
 
 package edu.worcester.cs499summer2012.service;
 
-import java.util.List;
-
 import android.content.Intent;
 
+import edu.worcester.cs499summer2012.database.TaskTable;
 import edu.worcester.cs499summer2012.database.TasksDataSource;
 import edu.worcester.cs499summer2012.task.Task;
 
@@ -43,25 +42,32 @@ public class TaskButlerService extends WakefulIntentService{
 		TasksDataSource db = TasksDataSource.getInstance(this); //get access to the instance of TasksDataSource
 		TaskAlarm alarm = new TaskAlarm();
 
-
-		List<Task> tasks = db.getAllTasks(); //Get a list of all the tasks there
-		for (Task task : tasks) {
+		// Only the columns needed here are read, a Task is loaded only for
+		// repeating tasks that have to be rescheduled
+		TaskTable tasks = db.getTaskTable(true, null, 0);
+		for (int row = 0; row < tasks.size(); row++) {
+			int id = tasks.getID(row);
+			boolean completed = tasks.isCompleted(row);
+			long date_due = tasks.getDateDue(row);
+			
 			// Cancel existing alarm
-			alarm.cancelAlarm(this, task.getID());
+			alarm.cancelAlarm(this, id);
 			
 			//Procrastinator and Reminder alarm
-			if(task.isPastDue()){
-				alarm.setReminder(this, task.getID());
+			if(tasks.isPastDue(row, System.currentTimeMillis())){
+				alarm.setReminder(this, id);
 			}
 			
 			//handle repeat alarms
-			if(task.isRepeating() && task.isCompleted()){
-				task = alarm.setRepeatingAlarm(this, task.getID());
+			if(tasks.isRepeating(row) && completed){
+				Task task = alarm.setRepeatingAlarm(this, id);
+				completed = task.isCompleted();
+				date_due = task.getDateDue();
 			}
 			
 			//regular alarms
-			if(!task.isCompleted() && (task.getDateDue() >= System.currentTimeMillis())){
-				alarm.setAlarm(this, task);	
+			if(!completed && (date_due >= System.currentTimeMillis())){
+				alarm.setAlarm(this, id, date_due);	
 			}
 		}
 		super.onHandleIntent(intent);
@@ -19,8 +19,6 @@
 
 package edu.worcester.cs499summer2012.service;
 
-import java.util.ArrayList;
-
 import android.app.Activity;
 import android.app.PendingIntent;
 import android.appwidget.AppWidgetManager;
@@ -37,6 +35,7 @@ import edu.worcester.cs499summer2012.R;
 import edu.worcester.cs499summer2012.activity.MainActivity;
 import edu.worcester.cs499summer2012.activity.SettingsActivity;
 import edu.worcester.cs499summer2012.adapter.TaskListAdapter;
+import edu.worcester.cs499summer2012.database.TaskTable;
 import edu.worcester.cs499summer2012.database.TasksDataSource;
 import edu.worcester.cs499summer2012.task.Task;
 
@@ -83,19 +82,27 @@ public class TaskButlerWidgetProvider extends AppWidgetProvider {
 	 */
 	@Override
 	public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+		// Get the first unfinished tasks in the current sort order. Only the
+		// rows shown are selected, the rest of the list is never sorted
+		SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+		TasksDataSource data_source = TasksDataSource.getInstance(context);
+		TaskTable tasks;
+		int[] rows;
+		if (prefs.getInt(SettingsActivity.SORT_TYPE, TaskListAdapter.AUTO_SORT) == TaskListAdapter.CUSTOM_SORT) {
+			tasks = data_source.getCustomSortedTaskTable(false, WIDGET_ROWS);
+			rows = new int[tasks.size()];
+			for (int i = 0; i < rows.length; i++)
+				rows[i] = i;
+		} else {
+			tasks = data_source.getTaskTable(false, null, 0);
+			rows = tasks.first(WIDGET_ROWS);
+		}
+		int size = rows.length;
+		long now = System.currentTimeMillis();
+		
 		for (int id : appWidgetIds) {
 			RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget);
 			
-			// Get the list of unfinished tasks
-			SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
-			TasksDataSource data_source = TasksDataSource.getInstance(context);
-			ArrayList<Task> tasks = new ArrayList<Task>(data_source.getTasks(false, null));
-			TaskListAdapter adapter = new TaskListAdapter(context, tasks);
-			adapter.setSortType(prefs.getInt(SettingsActivity.SORT_TYPE, TaskListAdapter.AUTO_SORT));
-			adapter.sort();
-			
-			int size = adapter.getCount();
-			
 			// Create a new widget item for each task and at it to the widget
 			for (int row = 0; row < WIDGET_ROWS; row++) {
 				// Check if there are less tasks to display than rows
@@ -105,11 +112,11 @@ public class TaskButlerWidgetProvider extends AppWidgetProvider {
 					views.setInt(ROW_IDS[row][NAME], "setVisibility", View.INVISIBLE);
 					views.setInt(ROW_IDS[row][COLOR], "setVisibility", View.INVISIBLE);
 				} else {
-					Task task = adapter.getItem(row);
+					int task = rows[row];
 					
 					// Set task priority
 					views.setInt(ROW_IDS[row][PRIORITY], "setVisibility", View.VISIBLE);
-					switch(task.getPriority()) {
+					switch(tasks.getPriority(task)) {
 					case Task.URGENT:
 						views.setImageViewResource(ROW_IDS[row][PRIORITY], R.drawable.ic_urgent);
 						break;
@@ -123,12 +130,12 @@ public class TaskButlerWidgetProvider extends AppWidgetProvider {
 					
 					// Set task name
 					views.setInt(ROW_IDS[row][NAME], "setVisibility", View.VISIBLE);
-					views.setTextViewText(ROW_IDS[row][NAME], task.getName());
-					views.setTextColor(ROW_IDS[row][NAME], task.isPastDue() ? Color.RED : Color.WHITE);
+					views.setTextViewText(ROW_IDS[row][NAME], tasks.getName(task));
+					views.setTextColor(ROW_IDS[row][NAME], tasks.isPastDue(task, now) ? Color.RED : Color.WHITE);
 					
 					// Set task color
 					views.setInt(ROW_IDS[row][COLOR], "setVisibility", View.VISIBLE);
-					views.setInt(ROW_IDS[row][COLOR], "setBackgroundColor", data_source.getCategory(task.getCategory()).getColor());
+					views.setInt(ROW_IDS[row][COLOR], "setBackgroundColor", data_source.getCategory(tasks.getCategory(task)).getColor());
 				}
 			}
 			
@@ -30,10 +30,20 @@ public class Comparator {
 	public final static int DATE_MODIFIED = 7;
 	public final static int NUM_COMPARATORS = 7;
 	
+	// Direction constants, ascending is the comparator's default order
+	public final static int ASCENDING = 0;
+	public final static int DESCENDING = 1;
+	
+	// Null placement constants, only used by the due date comparator
+	public final static int NULLS_LAST = 0;
+	public final static int NULLS_FIRST = 1;
+	
 	private int id;
 	private String name;
 	private boolean isEnabled;
 	private int order;
+	private int direction;
+	private int nulls;
 	
 	public Comparator(int id, String name) {
 		this.id = id;
@@ -43,10 +53,16 @@ public class Comparator {
 	}
 	
 	public Comparator(int id, String name, boolean isEnabled, int order) {
+		this(id, name, isEnabled, order, ASCENDING, NULLS_LAST);
+	}
+	
+	public Comparator(int id, String name, boolean isEnabled, int order, int direction, int nulls) {
 		this.id = id;
 		this.name = name;
 		this.isEnabled = isEnabled;
 		this.order = order;
+		this.direction = direction;
+		this.nulls = nulls;
 	}
 	
 	public int getId() {
@@ -84,4 +100,36 @@ public class Comparator {
 	public void setOrder(int order) {
 		this.order = order;
 	}
+	
+	public int getDirection() {
+		return direction;
+	}
+	
+	public void setDirection(int direction) {
+		this.direction = direction;
+	}
+	
+	public boolean isDescending() {
+		return direction == DESCENDING;
+	}
+	
+	public void toggleDirection() {
+		direction = isDescending() ? ASCENDING : DESCENDING;
+	}
+	
+	public int getNulls() {
+		return nulls;
+	}
+	
+	public void setNulls(int nulls) {
+		this.nulls = nulls;
+	}
+	
+	public boolean isNullsFirst() {
+		return nulls == NULLS_FIRST;
+	}
+	
+	public void toggleNulls() {
+		nulls = isNullsFirst() ? NULLS_LAST : NULLS_FIRST;
+	}
 }
@@ -0,0 +1,115 @@
+/*
+ * MemoryReporter.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.task;
+
+import java.util.List;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.util.Log;
+
+import edu.worcester.cs499summer2012.database.TasksDataSource;
+
+/**
+ * Logs a rough estimate of the memory held by loaded tasks and the caches 
+ * around them, to see where memory goes with large lists. Only logs in 
+ * debuggable builds. The sizes are approximations of Dalvik object sizes,
+ * not measurements.
+ */
+public final class MemoryReporter {
+	
+	private static final String TAG = "MemoryReporter";
+	
+	// Approximate object sizes in bytes
+	private static final int TASK_BYTES = 96;
+	private static final int SNAPSHOT_BYTES = 88;
+	private static final int STRING_BYTES = 40;
+	private static final int CALENDAR_BYTES = 450;
+	private static final int COLLATION_KEY_BYTES = 64;
+	private static final int REFERENCE_BYTES = 4;
+	
+	private MemoryReporter() {
+	}
+	
+	/**
+	 * @param context
+	 * @return true if the app is debuggable and reports are logged
+	 */
+	public static boolean isEnabled(Context context) {
+		return (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+	}
+	
+	/**
+	 * Logs the estimated memory held by a list of tasks, by the adapter 
+	 * showing them and by the task cache, followed by the heap usage.
+	 * @param context
+	 * @param tasks the loaded tasks, may be null
+	 * @param adapter_bytes the bytes held by the adapter besides the tasks
+	 */
+	public static void report(Context context, List<Task> tasks, long adapter_bytes) {
+		if (!isEnabled(context))
+			return;
+		
+		int count = 0;
+		long task_bytes = 0;
+		long string_bytes = 0;
+		int calendars = 0;
+		int name_keys = 0;
+		if (tasks != null) {
+			count = tasks.size();
+			for (Task task : tasks) {
+				task_bytes += TASK_BYTES + REFERENCE_BYTES;
+				string_bytes += stringBytes(task.getName()) + stringBytes(task.getNotes()) 
+						+ stringBytes(task.getgID());
+				calendars += task.getCalendarCount();
+				if (task.hasNameKey())
+					name_keys++;
+			}
+		}
+		long calendar_bytes = (long) calendars * CALENDAR_BYTES;
+		long name_key_bytes = (long) name_keys * COLLATION_KEY_BYTES;
+		
+		// Cached snapshots share no strings with the list, count them as 
+		// tasks of average size
+		int cached = TasksDataSource.getTaskCacheSize();
+		long cache_bytes = cached * (SNAPSHOT_BYTES + (count > 0 ? string_bytes / count : 0));
+		
+		Runtime runtime = Runtime.getRuntime();
+		long heap_used = runtime.totalMemory() - runtime.freeMemory();
+		
+		Log.d(TAG, "Tasks: " + count + ", ~" + kb(task_bytes + string_bytes) 
+				+ " KB (strings ~" + kb(string_bytes) + " KB)");
+		Log.d(TAG, "Calendars: " + calendars + ", ~" + kb(calendar_bytes) 
+				+ " KB; collation keys: " + name_keys + ", ~" + kb(name_key_bytes) + " KB");
+		Log.d(TAG, "Adapter indexes: ~" + kb(adapter_bytes) + " KB");
+		Log.d(TAG, "Task cache: " + cached + ", ~" + kb(cache_bytes) + " KB, " 
+				+ TasksDataSource.getTaskCacheHits() + " hits, " 
+				+ TasksDataSource.getTaskCacheMisses() + " misses");
+		Log.d(TAG, "Heap: " + kb(heap_used) + " KB used of " + kb(runtime.maxMemory()) + " KB");
+	}
+	
+	private static long stringBytes(String s) {
+		return s == null ? 0 : STRING_BYTES + 2L * s.length();
+	}
+	
+	private static long kb(long bytes) {
+		return (bytes + 512) / 1024;
+	}
+}
@@ -18,9 +18,14 @@
  */
 package edu.worcester.cs499summer2012.task;
 
+import java.text.CollationKey;
+import java.text.Collator;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 
+import android.os.Parcel;
+import android.os.Parcelable;
+
 /**
  * Defines a Task object (name, completion, priority, date created, due date, notes), 
  * provides multiple constructors as well as mutators, it has its own defined toString() and equals()
@@ -30,7 +35,7 @@ import java.util.GregorianCalendar;
  */
 
 
-public class Task {
+public class Task implements Parcelable {
 
 	/**************************************************************************
 	 * Static fields and methods                                              *
@@ -39,6 +44,7 @@ public class Task {
 	// Extra intent flags
 	public static final String EXTRA_TASK = "edu.worcester.cs499summer2012.TASK";
 	public static final String EXTRA_TASK_ID = "edu.worcester.cs499summer2012.TASK_ID";
+	public static final String EXTRA_DATA_VERSION = "edu.worcester.cs499summer2012.DATA_VERSION";
 
 	// Priority constants
 	public static final String[] PRIORITY_LABELS = {"Trivial", "Normal", "Urgent"};
@@ -55,6 +61,49 @@ public class Task {
 	public static final int MONTHS = 4;
 	public static final int YEARS = 5;
 
+	// Bits of the packed boolean fields in a parcel
+	private static final int PARCEL_COMPLETED = 1;
+	private static final int PARCEL_HAS_DATE_DUE = 2;
+	private static final int PARCEL_HAS_FINAL_DATE_DUE = 4;
+	private static final int PARCEL_IS_REPEATING = 8;
+	private static final int PARCEL_NOTES_LOADED = 16;
+
+	public static final Parcelable.Creator<Task> CREATOR = new Parcelable.Creator<Task>() {
+
+		@Override
+		public Task createFromParcel(Parcel source) {
+			int id = source.readInt();
+			String name = source.readString();
+			int flags = source.readInt();
+			int priority = source.readInt();
+			int category = source.readInt();
+			int repeatType = source.readInt();
+			int repeatInterval = source.readInt();
+			long dateCreated = source.readLong();
+			long dateModified = source.readLong();
+			long dateDue = source.readLong();
+			String gID = source.readString();
+			String notes = source.readString();
+			Task task = new Task(id, name, 
+					(flags & PARCEL_COMPLETED) != 0, 
+					priority, 
+					category, 
+					(flags & PARCEL_HAS_DATE_DUE) != 0, 
+					(flags & PARCEL_HAS_FINAL_DATE_DUE) != 0, 
+					(flags & PARCEL_IS_REPEATING) != 0, 
+					repeatType, repeatInterval, dateCreated, dateModified, 
+					dateDue, gID, notes);
+			if ((flags & PARCEL_NOTES_LOADED) == 0)
+				task.discardNotes();
+			return task;
+		}
+
+		@Override
+		public Task[] newArray(int size) {
+			return new Task[size];
+		}
+	};
+
 	/**************************************************************************
 	 * Private fields                                                         *
 	 **************************************************************************/
@@ -74,9 +123,12 @@ public class Task {
 	private long dateDue;
 	private String gID;
 	private String notes;
+	private boolean notesLoaded = true;
 	private Calendar dateCreatedCal;
 	private Calendar dateModifiedCal;
 	private Calendar dateDueCal;
+	private CollationKey nameKey;
+	private Collator nameKeyCollator;
 
 	/**************************************************************************
 	 * Constructors                                                           *
@@ -135,28 +187,24 @@ public class Task {
 		this.dateDue = dateDue;
 		this.gID = gID;
 		this.notes = notes;
-
-		updateDateCreatedCal();
-		updateDateModifiedCal();
-		updateDateDueCal();
 	}
 
 	/**************************************************************************
 	 * Class methods                                                          *
 	 **************************************************************************/ 
 
-	private void updateDateCreatedCal() {
-		if (dateCreatedCal == null)
-			dateCreatedCal = new GregorianCalendar();
+	// The calendars are only created when first asked for, most code only
+	// needs the long values. Once created, they are kept in sync by the 
+	// setters.
 
-		dateCreatedCal.setTimeInMillis(dateCreated);
+	private void updateDateCreatedCal() {
+		if (dateCreatedCal != null)
+			dateCreatedCal.setTimeInMillis(dateCreated);
 	}
 
 	private void updateDateModifiedCal() {
-		if (dateModifiedCal == null)
-			dateModifiedCal = new GregorianCalendar();
-
-		dateModifiedCal.setTimeInMillis(dateModified);
+		if (dateModifiedCal != null)
+			dateModifiedCal.setTimeInMillis(dateModified);
 	}
 
 	private void updateDateDueCal() {
@@ -166,10 +214,44 @@ public class Task {
 			return;
 		}
 
-		if (dateDueCal == null)
-			dateDueCal = new GregorianCalendar();
+		if (dateDueCal != null)
+			dateDueCal.setTimeInMillis(dateDue);
+	}
+	
+	/**
+	 * @return the number of calendars created so far, for MemoryReporter
+	 */
+	int getCalendarCount() {
+		int count = 0;
+		if (dateCreatedCal != null)
+			count++;
+		if (dateModifiedCal != null)
+			count++;
+		if (dateDueCal != null)
+			count++;
+		return count;
+	}
 
-		dateDueCal.setTimeInMillis(dateDue);
+	/**
+	 * @return whether a collation key is held, for MemoryReporter
+	 */
+	boolean hasNameKey() {
+		return nameKey != null;
+	}
+	
+	/**
+	 * Returns the collation key of the task name for sorting by name. The 
+	 * key is computed once and reused until the name or the collator 
+	 * changes.
+	 * @param collator the collator of the current locale
+	 * @return the collation key of the name
+	 */
+	public CollationKey getNameKey(Collator collator) {
+		if (nameKey == null || nameKeyCollator != collator) {
+			nameKey = collator.getCollationKey(name != null ? name : "");
+			nameKeyCollator = collator;
+		}
+		return nameKey;
 	}
 	
 	public boolean isPastDue() {
@@ -209,6 +291,47 @@ public class Task {
 		return name;
 	}
 
+	/**************************************************************************
+	 * Methods implementing Parcelable interface                              *
+	 **************************************************************************/
+
+	@Override
+	public int describeContents() {
+		return 0;
+	}
+
+	/**
+	 * Writes the persisted fields, with the booleans packed into one int. 
+	 * The calendars and the collation key are rebuilt on demand.
+	 */
+	@Override
+	public void writeToParcel(Parcel dest, int flags) {
+		int packed = 0;
+		if (isCompleted)
+			packed |= PARCEL_COMPLETED;
+		if (hasDateDue)
+			packed |= PARCEL_HAS_DATE_DUE;
+		if (hasFinalDateDue)
+			packed |= PARCEL_HAS_FINAL_DATE_DUE;
+		if (isRepeating)
+			packed |= PARCEL_IS_REPEATING;
+		if (notesLoaded)
+			packed |= PARCEL_NOTES_LOADED;
+		
+		dest.writeInt(id);
+		dest.writeString(name);
+		dest.writeInt(packed);
+		dest.writeInt(priority);
+		dest.writeInt(category);
+		dest.writeInt(repeatType);
+		dest.writeInt(repeatInterval);
+		dest.writeLong(dateCreated);
+		dest.writeLong(dateModified);
+		dest.writeLong(dateDue);
+		dest.writeString(gID);
+		dest.writeString(notes);
+	}
+
 	/**************************************************************************
 	 * Getters and setters                                                    *
 	 **************************************************************************/	
@@ -227,6 +350,7 @@ public class Task {
 
 	public void setName(String name) {
 		this.name = name;
+		nameKey = null;
 	}
 
 	public boolean isCompleted() {
@@ -263,6 +387,7 @@ public class Task {
 
 	public void setHasDateDue(boolean hasDateDue) {
 		this.hasDateDue = hasDateDue;
+		updateDateDueCal();
 	}
 
 	public boolean hasFinalDateDue() {
@@ -286,7 +411,7 @@ public class Task {
 	}
 
 	public void setRepeatType(int repeatType) {
-		if (repeatType >= 0 && repeatType <= 5) {
+		if (repeatType >= MINUTES && repeatType <= YEARS) {
 			this.isRepeating = true;
 			this.repeatType = repeatType;
 		}
@@ -305,6 +430,10 @@ public class Task {
 	}
 
 	public Calendar getDateCreatedCal() {
+		if (dateCreatedCal == null) {
+			dateCreatedCal = new GregorianCalendar();
+			dateCreatedCal.setTimeInMillis(dateCreated);
+		}
 		return dateCreatedCal;
 	}
 
@@ -318,6 +447,10 @@ public class Task {
 	}
 
 	public Calendar getDateModifiedCal() {
+		if (dateModifiedCal == null) {
+			dateModifiedCal = new GregorianCalendar();
+			dateModifiedCal.setTimeInMillis(dateModified);
+		}
 		return dateModifiedCal;
 	}
 
@@ -330,7 +463,14 @@ public class Task {
 		return dateDue;
 	}
 
+	/**
+	 * @return the due date as a calendar, or null if the task has no due date
+	 */
 	public Calendar getDateDueCal() {
+		if (dateDueCal == null && hasDateDue) {
+			dateDueCal = new GregorianCalendar();
+			dateDueCal.setTimeInMillis(dateDue);
+		}
 		return dateDueCal;
 	}
 
@@ -340,12 +480,33 @@ public class Task {
 		updateDateDueCal();
 	}
 
+	/**
+	 * @return the notes, or null if they are empty or were not loaded
+	 */
 	public String getNotes() {
 		return notes;
 	}
 
 	public void setNotes(String notes) {
 		this.notes = notes;
+		this.notesLoaded = true;
+	}
+
+	/**
+	 * @return false if the task was read without its notes, see 
+	 *         TasksDataSource.loadNotes()
+	 */
+	public boolean hasNotesLoaded() {
+		return notesLoaded;
+	}
+
+	/**
+	 * Drops the notes and marks them as not loaded. Saving the task then 
+	 * leaves the stored notes as they are.
+	 */
+	public void discardNotes() {
+		this.notes = null;
+		this.notesLoaded = false;
 	}
 
 	public String getgID() {
@@ -0,0 +1,92 @@
+/*
+ * TaskSnapshot.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.task;
+
+/**
+ * An immutable copy of a task. A snapshot never changes once created, so it
+ * can be handed between threads without locking, as the task cache of 
+ * TasksDataSource does. Callers get a mutable copy with toTask().
+ */
+public final class TaskSnapshot {
+
+	/**************************************************************************
+	 * Private fields                                                         *
+	 **************************************************************************/
+
+	private final int id;
+	private final String name;
+	private final boolean isCompleted;
+	private final int priority;
+	private final int category;
+	private final boolean hasDateDue;
+	private final boolean hasFinalDateDue;
+	private final boolean isRepeating;
+	private final int repeatType;
+	private final int repeatInterval;
+	private final long dateCreated;
+	private final long dateModified;
+	private final long dateDue;
+	private final String gID;
+	private final String notes;
+	private final boolean notesLoaded;
+
+	/**************************************************************************
+	 * Constructors                                                           *
+	 **************************************************************************/
+
+	/**
+	 * Copies the current values of a task.
+	 * @param task
+	 */
+	public TaskSnapshot(Task task) {
+		this.id = task.getID();
+		this.name = task.getName();
+		this.isCompleted = task.isCompleted();
+		this.priority = task.getPriority();
+		this.category = task.getCategory();
+		this.hasDateDue = task.hasDateDue();
+		this.hasFinalDateDue = task.hasFinalDateDue();
+		this.isRepeating = task.isRepeating();
+		this.repeatType = task.getRepeatType();
+		this.repeatInterval = task.getRepeatInterval();
+		this.dateCreated = task.getDateCreated();
+		this.dateModified = task.getDateModified();
+		this.dateDue = task.getDateDue();
+		this.gID = task.getgID();
+		this.notes = task.getNotes();
+		this.notesLoaded = task.hasNotesLoaded();
+	}
+
+	/**************************************************************************
+	 * Class methods                                                          *
+	 **************************************************************************/ 
+
+	/**
+	 * @return a new mutable task with the values of this snapshot
+	 */
+	public Task toTask() {
+		Task task = new Task(id, name, isCompleted, priority, category, hasDateDue,
+				hasFinalDateDue, isRepeating, repeatType, repeatInterval,
+				dateCreated, dateModified, dateDue, gID, notes);
+		if (!notesLoaded)
+			task.discardNotes();
+		return task;
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * IntObjectHashMap.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.util;
+
+/**
+ * A hash map from int keys to objects, for lookups by task or category id.
+ * Unlike HashMap<Integer, V> it does not box the keys or create an entry 
+ * object per mapping: keys and values live in two parallel arrays, and 
+ * collisions are resolved by linear probing. Null values are not allowed.
+ * Not thread safe.
+ * @param <V> the type of the values
+ */
+public class IntObjectHashMap<V> {
+	
+	private static final int DEFAULT_CAPACITY = 16;
+	
+	private int[] keys;
+	private Object[] values;
+	private int size;
+	private int mask;
+	
+	public IntObjectHashMap() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * @param expected_size the number of mappings to make room for
+	 */
+	public IntObjectHashMap(int expected_size) {
+		allocate(capacityFor(expected_size));
+	}
+	
+	/**
+	 * @return the value mapped to key, or null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int key) {
+		int i = indexOf(key);
+		return i < 0 ? null : (V) values[i];
+	}
+	
+	public boolean containsKey(int key) {
+		return indexOf(key) >= 0;
+	}
+	
+	/**
+	 * Maps key to value, replacing any previous value.
+	 * @param key
+	 * @param value the value, must not be null
+	 * @return the previous value, or null if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		if (value == null)
+			throw new IllegalArgumentException("null value");
+		
+		int i = slot(key);
+		while (values[i] != null) {
+			if (keys[i] == key) {
+				V previous = (V) values[i];
+				values[i] = value;
+				return previous;
+			}
+			i = (i + 1) & mask;
+		}
+		
+		keys[i] = key;
+		values[i] = value;
+		// Keep the table at most half full so probe runs stay short
+		if (++size * 2 > values.length)
+			rehash(values.length * 2);
+		return null;
+	}
+	
+	/**
+	 * Removes the mapping of key, if any.
+	 * @return the removed value, or null if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(int key) {
+		int i = indexOf(key);
+		if (i < 0)
+			return null;
+		
+		V previous = (V) values[i];
+		values[i] = null;
+		size--;
+		
+		// Move later entries of the probe run back into the gap, so every 
+		// entry stays reachable from its home slot
+		int gap = i;
+		i = (i + 1) & mask;
+		while (values[i] != null) {
+			int home = slot(keys[i]);
+			if (((i - home) & mask) >= ((i - gap) & mask)) {
+				keys[gap] = keys[i];
+				values[gap] = values[i];
+				values[i] = null;
+				gap = i;
+			}
+			i = (i + 1) & mask;
+		}
+		return previous;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	public void clear() {
+		for (int i = 0; i < values.length; i++)
+			values[i] = null;
+		size = 0;
+	}
+	
+	/**
+	 * @return the slot of key, or -1 if it is not in the map
+	 */
+	private int indexOf(int key) {
+		int i = slot(key);
+		while (values[i] != null) {
+			if (keys[i] == key)
+				return i;
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+	
+	/**
+	 * @return the home slot of key. Ids are mostly consecutive, so they are
+	 *         spread with a multiplicative hash first.
+	 */
+	private int slot(int key) {
+		int h = key * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+	
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+	}
+	
+	private void rehash(int capacity) {
+		int[] old_keys = keys;
+		Object[] old_values = values;
+		allocate(capacity);
+		for (int j = 0; j < old_values.length; j++) {
+			if (old_values[j] == null)
+				continue;
+			
+			int i = slot(old_keys[j]);
+			while (values[i] != null)
+				i = (i + 1) & mask;
+			keys[i] = old_keys[j];
+			values[i] = old_values[j];
+		}
+	}
+	
+	/**
+	 * @return the smallest power of two that holds expected_size mappings 
+	 *         at most half full
+	 */
+	private static int capacityFor(int expected_size) {
+		int capacity = 2;
+		while (capacity < expected_size * 2 && capacity < (1 << 30))
+			capacity <<= 1;
+		return capacity;
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * RandomTasks.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.comparator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import edu.worcester.cs499summer2012.task.Task;
+
+/**
+ * Builds random task lists and sort settings for the sort tests. Fields 
+ * are drawn from small ranges, so many tasks tie on one or more sort keys 
+ * and the tests also check that the sorts are stable.
+ */
+public final class RandomTasks {
+	
+	private static final String[] NAMES = {"", "bread", "Bread", "eggs", 
+		"\u00e9clair", "Eclair", "milk", "Milk", "pay bills"};
+	
+	private static final long BASE_DATE = 1340000000000L;
+	
+	private RandomTasks() {
+	}
+	
+	/**
+	 * @param random the source of the field values
+	 * @param size the number of tasks
+	 * @return a new list of random tasks with IDs 1 to size
+	 */
+	public static ArrayList<Task> create(Random random, int size) {
+		ArrayList<Task> tasks = new ArrayList<Task>(size);
+		for (int i = 1; i <= size; i++) {
+			tasks.add(new Task(i, 
+					NAMES[random.nextInt(NAMES.length)], 
+					random.nextInt(3) == 0, 
+					random.nextInt(3), 
+					1 + random.nextInt(4), 
+					random.nextBoolean(), 
+					false, 
+					false, 
+					Task.DAYS, 
+					1, 
+					BASE_DATE + random.nextInt(50) * 60000L, 
+					BASE_DATE + random.nextInt(50) * 60000L, 
+					BASE_DATE + (random.nextInt(100) - 50) * 3600000L, 
+					null, 
+					null));
+		}
+		return tasks;
+	}
+	
+	/**
+	 * @param random the source of the settings
+	 * @return every comparator setting once, in random order and with 
+	 *         random enabled state, direction and null placement
+	 */
+	public static ArrayList<edu.worcester.cs499summer2012.task.Comparator> createSettings(Random random) {
+		ArrayList<edu.worcester.cs499summer2012.task.Comparator> settings = 
+				new ArrayList<edu.worcester.cs499summer2012.task.Comparator>();
+		for (int id = 1; id <= edu.worcester.cs499summer2012.task.Comparator.NUM_COMPARATORS; id++)
+			settings.add(new edu.worcester.cs499summer2012.task.Comparator(id, "", 
+					random.nextBoolean(), 0, random.nextInt(2), random.nextInt(2)));
+		Collections.shuffle(settings, random);
+		for (int i = 0; i < settings.size(); i++)
+			settings.get(i).setOrder(i);
+		return settings;
+	}
+}
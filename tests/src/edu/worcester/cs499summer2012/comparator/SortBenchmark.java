@@ -0,0 +1,215 @@
+/*
+ * SortBenchmark.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.comparator;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import edu.worcester.cs499summer2012.task.Task;
+
+/**
+ * Times the sort paths of the comparator package against the sorts they 
+ * replaced, on the same random task lists as the tests. Run the main 
+ * method with the test classpath; it prints the median time of each 
+ * scenario per list size.
+ */
+public final class SortBenchmark {
+	
+	private static final int[] SIZES = {100, 1000, 10000, 50000};
+	
+	private static final int WARMUP_RUNS = 5;
+	private static final int RUNS = 15;
+	
+	// Rows shown by the homescreen widget
+	private static final int WIDGET_ROWS = 5;
+	
+	private static final int NAMES = 50000;
+	private static final String LETTERS = "aAbBcCdeEfghiIjklmnoOprsStTuvwyz \u00e9\u00f6";
+	
+	/**
+	 * One way of sorting a list, timed on a fresh copy each run.
+	 */
+	private interface Scenario {
+		void run(List<Task> tasks);
+	}
+	
+	private SortBenchmark() {
+	}
+	
+	public static void main(String[] args) {
+		final ArrayList<edu.worcester.cs499summer2012.task.Comparator> settings = 
+				new ArrayList<edu.worcester.cs499summer2012.task.Comparator>();
+		settings.add(new edu.worcester.cs499summer2012.task.Comparator(
+				edu.worcester.cs499summer2012.task.Comparator.COMPLETION, "", true, 0));
+		settings.add(new edu.worcester.cs499summer2012.task.Comparator(
+				edu.worcester.cs499summer2012.task.Comparator.DATE_DUE, "", true, 1));
+		settings.add(new edu.worcester.cs499summer2012.task.Comparator(
+				edu.worcester.cs499summer2012.task.Comparator.PRIORITY, "", true, 2));
+		settings.add(new edu.worcester.cs499summer2012.task.Comparator(
+				edu.worcester.cs499summer2012.task.Comparator.NAME, "", true, 3));
+		
+		System.out.println("median of " + RUNS + " runs, in microseconds");
+		for (int size : SIZES) {
+			ArrayList<Task> tasks = RandomTasks.create(new Random(size), size);
+			System.out.println(size + " tasks:");
+			
+			report("auto sort, TaskAutoComparator", time(tasks, new Scenario() {
+				
+				@Override
+				public void run(List<Task> tasks) {
+					Collections.sort(tasks, new TaskAutoComparator());
+				}
+			}));
+			report("auto sort, packed keys", time(tasks, new Scenario() {
+				
+				@Override
+				public void run(List<Task> tasks) {
+					TaskSortKeys.sort(tasks);
+				}
+			}));
+			report("custom sort, one pass per key", time(tasks, new Scenario() {
+				
+				@Override
+				public void run(List<Task> tasks) {
+					TaskCompositeComparatorTest.multiPassSort(tasks, settings);
+				}
+			}));
+			report("custom sort, composite comparator", time(tasks, new Scenario() {
+				
+				@Override
+				public void run(List<Task> tasks) {
+					Collections.sort(tasks, new TaskCompositeComparator(settings));
+				}
+			}));
+			report("widget rows, full auto sort", time(tasks, new Scenario() {
+				
+				@Override
+				public void run(List<Task> tasks) {
+					Collections.sort(tasks, new TaskAutoComparator());
+					tasks.subList(Math.min(WIDGET_ROWS, tasks.size()), tasks.size()).clear();
+				}
+			}));
+			report("widget rows, firstOrder", time(tasks, new Scenario() {
+				
+				@Override
+				public void run(List<Task> tasks) {
+					int size = tasks.size();
+					long[] primary = new long[size];
+					long[] secondary = new long[size];
+					for (int i = 0; i < size; i++) {
+						primary[i] = TaskSortKeys.primaryKey(tasks.get(i));
+						secondary[i] = TaskSortKeys.secondaryKey(tasks.get(i));
+					}
+					TaskSortKeys.firstOrder(primary, secondary, WIDGET_ROWS);
+				}
+			}));
+		}
+		benchmarkNames();
+	}
+	
+	/**
+	 * Times sorting tasks by name only: the original String.compareTo(), a 
+	 * Collator on every comparison, and TaskNameComparator with collation
+	 * keys built during the sort or already cached in the tasks.
+	 */
+	private static void benchmarkNames() {
+		Random random = new Random(NAMES);
+		ArrayList<Task> tasks = RandomTasks.create(random, NAMES);
+		StringBuilder name = new StringBuilder();
+		for (Task task : tasks) {
+			name.setLength(0);
+			int length = 3 + random.nextInt(12);
+			for (int i = 0; i < length; i++)
+				name.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+			task.setName(name.toString());
+		}
+		System.out.println(NAMES + " names:");
+		
+		report("name sort, String.compareTo", time(tasks, new Scenario() {
+			
+			@Override
+			public void run(List<Task> tasks) {
+				Collections.sort(tasks, new java.util.Comparator<Task>() {
+					
+					@Override
+					public int compare(Task lhs, Task rhs) {
+						return lhs.getName().compareTo(rhs.getName());
+					}
+				});
+			}
+		}));
+		report("name sort, Collator.compare", time(tasks, new Scenario() {
+			
+			@Override
+			public void run(List<Task> tasks) {
+				final Collator collator = Collator.getInstance();
+				Collections.sort(tasks, new java.util.Comparator<Task>() {
+					
+					@Override
+					public int compare(Task lhs, Task rhs) {
+						return collator.compare(lhs.getName(), rhs.getName());
+					}
+				});
+			}
+		}));
+		report("name sort, collation keys built", time(tasks, new Scenario() {
+			
+			@Override
+			public void run(List<Task> tasks) {
+				// setName() drops the cached key
+				for (Task task : tasks)
+					task.setName(task.getName());
+				Collections.sort(tasks, new TaskNameComparator());
+			}
+		}));
+		report("name sort, collation keys cached", time(tasks, new Scenario() {
+			
+			@Override
+			public void run(List<Task> tasks) {
+				Collections.sort(tasks, new TaskNameComparator());
+			}
+		}));
+	}
+	
+	/**
+	 * @return the median time of a scenario in nanoseconds, each run on a 
+	 *         fresh copy of the tasks
+	 */
+	private static long time(List<Task> tasks, Scenario scenario) {
+		long[] times = new long[RUNS];
+		for (int run = -WARMUP_RUNS; run < RUNS; run++) {
+			ArrayList<Task> copy = new ArrayList<Task>(tasks);
+			long start = System.nanoTime();
+			scenario.run(copy);
+			if (run >= 0)
+				times[run] = System.nanoTime() - start;
+		}
+		Arrays.sort(times);
+		return times[RUNS / 2];
+	}
+	
+	private static void report(String scenario, long nanos) {
+		System.out.println("  " + scenario + ": " + nanos / 1000);
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * TaskCompositeComparatorTest.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.comparator;
+
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.worcester.cs499summer2012.task.Task;
+
+/**
+ * Checks the single pass custom sort against the original one, which 
+ * sorted the list once per enabled comparator, lowest sorting first.
+ */
+public class TaskCompositeComparatorTest {
+	
+	private static final int RUNS = 200;
+	
+	@Test
+	public void compositeMatchesMultiPassSort() {
+		Random random = new Random(0);
+		for (int run = 0; run < RUNS; run++) {
+			ArrayList<edu.worcester.cs499summer2012.task.Comparator> settings = 
+					RandomTasks.createSettings(random);
+			ArrayList<Task> expected = RandomTasks.create(random, random.nextInt(300));
+			ArrayList<Task> actual = new ArrayList<Task>(expected);
+			
+			multiPassSort(expected, settings);
+			Collections.sort(actual, new TaskCompositeComparator(settings));
+			
+			for (int i = 0; i < expected.size(); i++)
+				assertSame("run " + run + ", index " + i, expected.get(i), actual.get(i));
+		}
+	}
+	
+	/**
+	 * Sorts the tasks the way the custom sort did originally, once per 
+	 * enabled setting, lowest sorting first.
+	 * @param tasks the tasks to sort in place
+	 * @param settings the comparator settings, highest sorting first
+	 */
+	static void multiPassSort(List<Task> tasks, 
+			List<edu.worcester.cs499summer2012.task.Comparator> settings) {
+		// Must iterate through the list backwards so higher sorting is done later
+		for (int i = settings.size(); i > 0; i--) {
+			edu.worcester.cs499summer2012.task.Comparator setting = settings.get(i - 1);
+			if (setting.isEnabled())
+				Collections.sort(tasks, multiPassComparator(setting));
+		}
+	}
+	
+	/**
+	 * Returns the comparator one pass of the original sort used for a 
+	 * setting, with the direction and null placement applied directly.
+	 */
+	private static Comparator<Task> multiPassComparator(
+			final edu.worcester.cs499summer2012.task.Comparator setting) {
+		Comparator<Task> comparator;
+		switch (setting.getId()) {
+		case edu.worcester.cs499summer2012.task.Comparator.NAME:
+			comparator = new TaskNameComparator();
+			break;
+		case edu.worcester.cs499summer2012.task.Comparator.COMPLETION:
+			comparator = new TaskCompletionComparator();
+			break;
+		case edu.worcester.cs499summer2012.task.Comparator.PRIORITY:
+			comparator = new TaskPriorityComparator();
+			break;
+		case edu.worcester.cs499summer2012.task.Comparator.CATEGORY:
+			comparator = new TaskCategoryComparator();
+			break;
+		case edu.worcester.cs499summer2012.task.Comparator.DATE_DUE:
+			// Tasks with no due date stay at the chosen end in both directions
+			return new Comparator<Task>() {
+				
+				@Override
+				public int compare(Task lhs, Task rhs) {
+					if (lhs.hasDateDue() != rhs.hasDateDue())
+						return lhs.hasDateDue() == setting.isNullsFirst() ? 1 : -1;
+					if (!lhs.hasDateDue() || lhs.getDateDue() == rhs.getDateDue())
+						return 0;
+					int result = lhs.getDateDue() < rhs.getDateDue() ? -1 : 1;
+					return setting.isDescending() ? -result : result;
+				}
+			};
+		case edu.worcester.cs499summer2012.task.Comparator.DATE_CREATED:
+			comparator = new TaskDateCreatedComparator();
+			break;
+		case edu.worcester.cs499summer2012.task.Comparator.DATE_MODIFIED:
+		default:
+			comparator = new TaskDateModifiedComparator();
+			break;
+		}
+		return setting.isDescending() ? Collections.reverseOrder(comparator) : comparator;
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * TaskSortKeysTest.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.comparator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.worcester.cs499summer2012.task.Task;
+
+/**
+ * Checks the packed key sorts against sorting with TaskAutoComparator.
+ */
+public class TaskSortKeysTest {
+	
+	// The last size is above the parallel sort threshold
+	private static final int[] SIZES = {0, 1, 2, 15, 17, 100, 1000, 20000};
+	
+	private static final int SEEDS = 5;
+	
+	@Test
+	public void sortMatchesAutoComparator() {
+		for (int seed = 0; seed < SEEDS; seed++) {
+			for (int size : SIZES) {
+				ArrayList<Task> expected = RandomTasks.create(new Random(seed), size);
+				ArrayList<Task> actual = new ArrayList<Task>(expected);
+				Collections.sort(expected, new TaskAutoComparator());
+				
+				long[] primary = new long[size];
+				long[] secondary = new long[size];
+				TaskSortKeys.sort(actual, primary, secondary);
+				
+				for (int i = 0; i < size; i++) {
+					String message = "seed " + seed + ", size " + size + ", index " + i;
+					assertSame(message, expected.get(i), actual.get(i));
+					assertEquals(message, TaskSortKeys.primaryKey(actual.get(i)), primary[i]);
+					assertEquals(message, TaskSortKeys.secondaryKey(actual.get(i)), secondary[i]);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void firstOrderMatchesFullSort() {
+		for (int seed = 0; seed < SEEDS; seed++) {
+			for (int size : SIZES) {
+				ArrayList<Task> tasks = RandomTasks.create(new Random(seed), size);
+				long[] primary = new long[size];
+				long[] secondary = new long[size];
+				for (int i = 0; i < size; i++) {
+					primary[i] = TaskSortKeys.primaryKey(tasks.get(i));
+					secondary[i] = TaskSortKeys.secondaryKey(tasks.get(i));
+				}
+				
+				ArrayList<Task> sorted = new ArrayList<Task>(tasks);
+				Collections.sort(sorted, new TaskAutoComparator());
+				
+				int[] ks = {0, 1, 5, size / 2, size - 1, size, size + 3};
+				for (int k : ks) {
+					int[] first = TaskSortKeys.firstOrder(primary, secondary, k);
+					assertEquals("seed " + seed + ", size " + size + ", k " + k, 
+							Math.max(0, Math.min(k, size)), first.length);
+					for (int i = 0; i < first.length; i++)
+						assertSame("seed " + seed + ", size " + size + ", k " + k + ", index " + i, 
+								sorted.get(i), tasks.get(first[i]));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * CustomOrderByTest.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.worcester.cs499summer2012.comparator.RandomTasks;
+import edu.worcester.cs499summer2012.comparator.TaskCompositeComparator;
+import edu.worcester.cs499summer2012.task.Comparator;
+import edu.worcester.cs499summer2012.task.Task;
+
+/**
+ * Checks that the database orders tasks by the custom sort ORDER BY clause
+ * exactly like TaskCompositeComparator orders them in memory. Runs on an 
+ * in-memory SQLite database through sqlite-jdbc.
+ */
+public class CustomOrderByTest {
+	
+	private static final int RUNS = 200;
+	
+	private Connection connection;
+	
+	@Before
+	public void setUp() throws Exception {
+		Class.forName("org.sqlite.JDBC");
+		connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+	}
+	
+	@After
+	public void tearDown() throws SQLException {
+		connection.close();
+	}
+	
+	@Test
+	public void orderByMatchesComposite() throws SQLException {
+		Random random = new Random(0);
+		for (int run = 0; run < RUNS; run++) {
+			ArrayList<Comparator> settings = RandomTasks.createSettings(random);
+			ArrayList<Task> tasks = RandomTasks.create(random, random.nextInt(300));
+			
+			String order_by = TasksDataSource.getOrderBy(settings);
+			if (order_by == null) {
+				// Names are only ordered in memory
+				assertEquals("run " + run, true, sortsByName(settings));
+				continue;
+			}
+			
+			// Stored in random order, the clause must not depend on it
+			ArrayList<Task> stored = new ArrayList<Task>(tasks);
+			Collections.shuffle(stored, random);
+			insert(stored);
+			ArrayList<Integer> actual = queryIDs(order_by);
+			
+			Collections.sort(tasks, new TaskCompositeComparator(settings));
+			assertEquals("run " + run + ", " + order_by, tasks.size(), actual.size());
+			for (int i = 0; i < tasks.size(); i++)
+				assertEquals("run " + run + ", " + order_by + ", index " + i, 
+						tasks.get(i).getID(), actual.get(i).intValue());
+		}
+	}
+	
+	@Test
+	public void noOrderByForNames() {
+		ArrayList<Comparator> settings = new ArrayList<Comparator>();
+		settings.add(new Comparator(Comparator.PRIORITY, "", true, 0));
+		settings.add(new Comparator(Comparator.NAME, "", true, 1));
+		assertNull(TasksDataSource.getOrderBy(settings));
+	}
+	
+	private static boolean sortsByName(ArrayList<Comparator> settings) {
+		for (Comparator setting : settings)
+			if (setting.isEnabled() && setting.getId() == Comparator.NAME)
+				return true;
+		return false;
+	}
+	
+	private void insert(ArrayList<Task> tasks) throws SQLException {
+		Statement statement = connection.createStatement();
+		statement.executeUpdate("DROP TABLE IF EXISTS " + DatabaseHandler.TABLE_TASKS);
+		statement.executeUpdate("CREATE TABLE " + DatabaseHandler.TABLE_TASKS + "("
+				+ DatabaseHandler.KEY_ID + " INTEGER PRIMARY KEY,"
+				+ DatabaseHandler.KEY_NAME + " TEXT,"
+				+ DatabaseHandler.KEY_COMPLETION + " INTEGER,"
+				+ DatabaseHandler.KEY_PRIORITY + " INTEGER,"
+				+ DatabaseHandler.KEY_CATEGORY + " INTEGER,"
+				+ DatabaseHandler.KEY_HAS_DUE_DATE + " INTEGER,"
+				+ DatabaseHandler.KEY_CREATION_DATE + " DATETIME,"
+				+ DatabaseHandler.KEY_MODIFICATION_DATE + " DATETIME,"
+				+ DatabaseHandler.KEY_DUE_DATE + " DATETIME)");
+		statement.close();
+		
+		PreparedStatement insert = connection.prepareStatement("INSERT INTO " 
+				+ DatabaseHandler.TABLE_TASKS + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+		for (Task task : tasks) {
+			insert.setInt(1, task.getID());
+			insert.setString(2, task.getName());
+			insert.setInt(3, task.isCompleted() ? 1 : 0);
+			insert.setInt(4, task.getPriority());
+			insert.setInt(5, task.getCategory());
+			insert.setInt(6, task.hasDateDue() ? 1 : 0);
+			insert.setLong(7, task.getDateCreated());
+			insert.setLong(8, task.getDateModified());
+			insert.setLong(9, task.getDateDue());
+			insert.executeUpdate();
+		}
+		insert.close();
+	}
+	
+	private ArrayList<Integer> queryIDs(String order_by) throws SQLException {
+		ArrayList<Integer> ids = new ArrayList<Integer>();
+		Statement statement = connection.createStatement();
+		ResultSet result = statement.executeQuery("SELECT " + DatabaseHandler.KEY_ID 
+				+ " FROM " + DatabaseHandler.TABLE_TASKS + " ORDER BY " + order_by);
+		while (result.next())
+			ids.add(result.getInt(1));
+		result.close();
+		statement.close();
+		return ids;
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * JdbcSchemaDatabase.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the schema steps of DatabaseHandler on a JDBC connection, such as 
+ * an in-memory sqlite-jdbc database.
+ */
+public class JdbcSchemaDatabase implements SchemaDatabase {
+	
+	private final Connection connection;
+	
+	public JdbcSchemaDatabase(Connection connection) {
+		this.connection = connection;
+	}
+	
+	@Override
+	public void execSQL(String sql) {
+		try {
+			Statement statement = connection.createStatement();
+			try {
+				statement.executeUpdate(sql);
+			} finally {
+				statement.close();
+			}
+		} catch (SQLException e) {
+			throw new IllegalStateException(sql, e);
+		}
+	}
+	
+	@Override
+	public List<String> getColumns(String table) {
+		List<String> columns = new ArrayList<String>();
+		for (String[] row : query("PRAGMA table_info(" + table + ")", "name"))
+			columns.add(row[0]);
+		return columns;
+	}
+	
+	/**
+	 * @return the given columns of every row the query returns
+	 */
+	public List<String[]> query(String sql, String... columns) {
+		try {
+			Statement statement = connection.createStatement();
+			try {
+				List<String[]> rows = new ArrayList<String[]>();
+				ResultSet result = statement.executeQuery(sql);
+				while (result.next()) {
+					String[] row = new String[columns.length];
+					for (int i = 0; i < columns.length; i++)
+						row[i] = result.getString(columns[i]);
+					rows.add(row);
+				}
+				return rows;
+			} finally {
+				statement.close();
+			}
+		} catch (SQLException e) {
+			throw new IllegalStateException(sql, e);
+		}
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * MigrationTest.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.database;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.worcester.cs499summer2012.task.Category;
+
+/**
+ * Runs the upgrade steps of DatabaseHandler on fixture schemas of older
+ * versions, in an in-memory SQLite database through sqlite-jdbc, and checks 
+ * the result against a newly created database.
+ */
+public class MigrationTest {
+	
+	private Connection connection;
+	private JdbcSchemaDatabase db;
+	
+	@Before
+	public void setUp() throws Exception {
+		Class.forName("org.sqlite.JDBC");
+		connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+		db = new JdbcSchemaDatabase(connection);
+	}
+	
+	@After
+	public void tearDown() throws SQLException {
+		connection.close();
+	}
+	
+	@Test
+	public void stepsFollowEachOther() {
+		Migration[] steps = DatabaseHandler.MIGRATIONS;
+		for (int i = 1; i < steps.length; i++)
+			assertEquals(steps[i - 1].getVersion() + 1, steps[i].getVersion());
+	}
+	
+	@Test
+	public void stepsUpgradeReleaseCandidate1() throws Exception {
+		createRc1Tables();
+		for (Migration step : DatabaseHandler.MIGRATIONS)
+			step.apply(db);
+		
+		assertEquals(createdSchema(), schemaOf(db));
+		
+		// The tasks keep their rows, the category that only differed in 
+		// case is merged into the older one
+		assertRows("SELECT id, name, category, notes FROM tasks ORDER BY id", 
+				new String[] { "1", "Buy milk", "1", null }, 
+				new String[] { "2", "Write report", "2", "Due Friday" }, 
+				new String[] { "3", "Call boss", "2", null });
+		assertRows("SELECT id, name FROM categories ORDER BY id", 
+				new String[] { "1", "No category" }, 
+				new String[] { "2", "Work" });
+		assertEquals(7, db.query("SELECT id FROM comparators", "id").size());
+	}
+	
+	@Test
+	public void changeJournalIsDropped() throws Exception {
+		// The journal and triggers of versions 9 to 13
+		DatabaseHandler.create(db);
+		db.execSQL("CREATE TABLE task_changes(seq INTEGER PRIMARY KEY AUTOINCREMENT, "
+				+ "op INTEGER, source INTEGER, id INTEGER, timestamp DATETIME)");
+		db.execSQL("CREATE TABLE change_consumers(consumer TEXT PRIMARY KEY, seq INTEGER)");
+		String[] tables = { "tasks", "categories" };
+		String[] events = { "INSERT", "UPDATE", "DELETE" };
+		for (String table : tables)
+			for (String event : events)
+				db.execSQL("CREATE TRIGGER " + table + "_" + event.toLowerCase() + "_change"
+						+ " AFTER " + event + " ON " + table + " BEGIN "
+						+ "INSERT INTO task_changes(op, source, id, timestamp) VALUES "
+						+ "(0, 0, " + (event.equals("DELETE") ? "OLD" : "NEW") + ".id, 0); END");
+		
+		Migration[] steps = DatabaseHandler.MIGRATIONS;
+		steps[steps.length - 1].apply(db);
+		
+		assertEquals(createdSchema(), schemaOf(db));
+	}
+	
+	@Test
+	public void preRc1TablesAreCopiedAndKept() throws Exception {
+		db.execSQL("CREATE TABLE tasks(id INTEGER PRIMARY KEY, name TEXT, "
+				+ "completion INTEGER, priority INTEGER, category INTEGER, "
+				+ "dueDate DATETIME, notes TEXT)");
+		db.execSQL("INSERT INTO tasks VALUES (1, 'Buy milk', 0, 1, 1, 0, NULL)");
+		db.execSQL("INSERT INTO tasks VALUES (2, 'Write report', 1, 2, 5, 0, 'Due Friday')");
+		db.execSQL("INSERT INTO tasks VALUES (3, 'Call boss', 0, 3, 9, 0, NULL)");
+		db.execSQL("CREATE TABLE categories(id INTEGER PRIMARY KEY, name TEXT, color INTEGER)");
+		db.execSQL("INSERT INTO categories VALUES (1, 'None', 0)");
+		db.execSQL("INSERT INTO categories VALUES (5, 'Home', 255)");
+		db.execSQL("CREATE TABLE comparators(id INTEGER PRIMARY KEY, name TEXT)");
+		db.execSQL("INSERT INTO comparators VALUES (1, 'Task name')");
+		
+		DatabaseHandler.replacePreRc1Tables(db);
+		
+		assertEquals(createdSchema(), schemaOf(db));
+		
+		// Shared columns are copied, a task of a missing category gets none
+		assertRows("SELECT id, name, completion, priority, category, notes FROM tasks ORDER BY id", 
+				new String[] { "1", "Buy milk", "0", "1", "1", null }, 
+				new String[] { "2", "Write report", "1", "2", "5", "Due Friday" }, 
+				new String[] { "3", "Call boss", "0", "3", String.valueOf(Category.NO_CATEGORY), null });
+		assertRows("SELECT id, name, color FROM categories ORDER BY id", 
+				new String[] { "1", "No category", String.valueOf(0x00FFFFFF) }, 
+				new String[] { "5", "Home", "255" });
+		
+		// The old tables are kept as they were
+		assertEquals(3, db.query("SELECT id FROM tasks" + DatabaseHandler.PRE_RC1_SUFFIX, "id").size());
+		assertRows("SELECT name FROM categories" + DatabaseHandler.PRE_RC1_SUFFIX + " ORDER BY id", 
+				new String[] { "None" }, 
+				new String[] { "Home" });
+		assertEquals(1, db.query("SELECT id FROM comparators" + DatabaseHandler.PRE_RC1_SUFFIX, "id").size());
+	}
+	
+	/**
+	 * Creates the Release Candidate 1 (version 7) tables with a few rows.
+	 * The tasks table still has the deprecated columns, the comparators 
+	 * table has no sort direction, and two categories differ only in case.
+	 */
+	private void createRc1Tables() {
+		db.execSQL("CREATE TABLE tasks(id INTEGER PRIMARY KEY, name TEXT, "
+				+ "completion INTEGER, priority INTEGER, category INTEGER, "
+				+ "hasDueDate INTEGER, hasFinalDueDate INTEGER, hasStopRepeatingDate INTEGER, "
+				+ "isRepeating INTEGER, repeatType INTEGER, repeatInterval INTEGER, "
+				+ "creationDate DATETIME, modificationDate DATETIME, dueDate DATETIME, "
+				+ "finalDueDate DATETIME, stopRepeatingDate DATETIME, gID TEXT, notes TEXT)");
+		db.execSQL("INSERT INTO tasks VALUES (1, 'Buy milk', 0, 1, 1, 0, 0, 0, 0, 1, 1, "
+				+ "1340000000000, 1340000000000, 0, 0, 0, NULL, NULL)");
+		db.execSQL("INSERT INTO tasks VALUES (2, 'Write report', 0, 2, 2, 1, 0, 0, 0, 1, 1, "
+				+ "1340000000000, 1340000000000, 1350000000000, 0, 0, NULL, 'Due Friday')");
+		db.execSQL("INSERT INTO tasks VALUES (3, 'Call boss', 1, 3, 3, 0, 0, 0, 1, 2, 3, "
+				+ "1340000000000, 1340000000000, 0, 0, 0, NULL, NULL)");
+		db.execSQL("CREATE TABLE categories(id INTEGER PRIMARY KEY, name TEXT, "
+				+ "color INTEGER, updated DATETIME, gID TEXT)");
+		db.execSQL("INSERT INTO categories VALUES (1, 'No category', 16777215, 0, NULL)");
+		db.execSQL("INSERT INTO categories VALUES (2, 'Work', 255, 0, NULL)");
+		db.execSQL("INSERT INTO categories VALUES (3, 'work', 65280, 0, NULL)");
+		db.execSQL("CREATE TABLE comparators(id INTEGER PRIMARY KEY, name TEXT, "
+				+ "enabled INTEGER, list_order INTEGER)");
+		db.execSQL("INSERT INTO comparators VALUES (1, 'Task name', 1, 0)");
+	}
+	
+	private void assertRows(String sql, String[]... expected) {
+		String[] columns = sql.substring("SELECT ".length(), sql.indexOf(" FROM ")).split(", ");
+		List<String[]> actual = db.query(sql, columns);
+		assertEquals(sql, expected.length, actual.size());
+		for (int i = 0; i < expected.length; i++)
+			assertArrayEquals(sql + ", row " + i, expected[i], actual.get(i));
+	}
+	
+	private static List<String> createdSchema() throws SQLException {
+		Connection created = DriverManager.getConnection("jdbc:sqlite::memory:");
+		try {
+			JdbcSchemaDatabase schema = new JdbcSchemaDatabase(created);
+			DatabaseHandler.create(schema);
+			return schemaOf(schema);
+		} finally {
+			created.close();
+		}
+	}
+	
+	/**
+	 * @return the tables with their columns, and the indexes and triggers 
+	 *         with their SQL, leaving out the kept pre-RC1 tables
+	 */
+	private static List<String> schemaOf(JdbcSchemaDatabase db) {
+		List<String> schema = new ArrayList<String>();
+		for (String[] row : db.query("SELECT type, name, sql FROM sqlite_master"
+				+ " WHERE name NOT LIKE 'sqlite_%' AND name NOT LIKE '%" 
+				+ DatabaseHandler.PRE_RC1_SUFFIX + "'", "type", "name", "sql")) {
+			if (row[0].equals("table"))
+				schema.add(row[0] + " " + row[1] + " " + db.getColumns(row[1]));
+			else
+				schema.add(row[0] + " " + row[1] + " " + row[2]);
+		}
+		Collections.sort(schema);
+		return schema;
+	}
+}
@@ -0,0 +1,252 @@
+/*
+ * RowCursor.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import android.content.ContentResolver;
+import android.database.CharArrayBuffer;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.database.DataSetObserver;
+import android.net.Uri;
+import android.os.Bundle;
+
+/**
+ * A cursor over rows held in memory, for testing code that reads cursors
+ * without an Android database. Only the reading methods are implemented.
+ * Like a database cursor, every getString() returns a new String.
+ */
+public class RowCursor implements Cursor {
+	
+	private final String[] columns;
+	private final List<Object[]> rows = new ArrayList<Object[]>();
+	private int position = -1;
+	private boolean closed = false;
+	
+	/**
+	 * @param columns the column names, in row order
+	 */
+	public RowCursor(String... columns) {
+		this.columns = columns;
+	}
+	
+	/**
+	 * Adds a row at the end.
+	 * @param values one value per column: null, a Number or a String
+	 */
+	public void addRow(Object... values) {
+		if (values.length != columns.length)
+			throw new IllegalArgumentException("Expected " + columns.length + " values");
+		rows.add(values);
+	}
+	
+	private Object get(int column) {
+		if (position < 0 || position >= rows.size())
+			throw new IllegalStateException("No row at position " + position);
+		return rows.get(position)[column];
+	}
+	
+	/**************************************************************************
+	 * Moving                                                                 *
+	 **************************************************************************/
+	
+	public int getCount() {
+		return rows.size();
+	}
+	
+	public int getPosition() {
+		return position;
+	}
+	
+	public boolean move(int offset) {
+		return moveToPosition(position + offset);
+	}
+	
+	public boolean moveToPosition(int position) {
+		this.position = Math.max(-1, Math.min(position, rows.size()));
+		return this.position >= 0 && this.position < rows.size();
+	}
+	
+	public boolean moveToFirst() {
+		return moveToPosition(0);
+	}
+	
+	public boolean moveToLast() {
+		return moveToPosition(rows.size() - 1);
+	}
+	
+	public boolean moveToNext() {
+		return moveToPosition(position + 1);
+	}
+	
+	public boolean moveToPrevious() {
+		return moveToPosition(position - 1);
+	}
+	
+	public boolean isFirst() {
+		return position == 0 && !rows.isEmpty();
+	}
+	
+	public boolean isLast() {
+		return position == rows.size() - 1 && !rows.isEmpty();
+	}
+	
+	public boolean isBeforeFirst() {
+		return rows.isEmpty() || position < 0;
+	}
+	
+	public boolean isAfterLast() {
+		return rows.isEmpty() || position >= rows.size();
+	}
+	
+	/**************************************************************************
+	 * Columns                                                                *
+	 **************************************************************************/
+	
+	public int getColumnIndex(String name) {
+		return Arrays.asList(columns).indexOf(name);
+	}
+	
+	public int getColumnIndexOrThrow(String name) {
+		int index = getColumnIndex(name);
+		if (index < 0)
+			throw new IllegalArgumentException("column '" + name + "' does not exist");
+		return index;
+	}
+	
+	public String getColumnName(int column) {
+		return columns[column];
+	}
+	
+	public String[] getColumnNames() {
+		return columns.clone();
+	}
+	
+	public int getColumnCount() {
+		return columns.length;
+	}
+	
+	/**************************************************************************
+	 * Values                                                                 *
+	 **************************************************************************/
+	
+	public byte[] getBlob(int column) {
+		throw new UnsupportedOperationException();
+	}
+	
+	public String getString(int column) {
+		Object value = get(column);
+		return value == null ? null : new String(value.toString().toCharArray());
+	}
+	
+	public void copyStringToBuffer(int column, CharArrayBuffer buffer) {
+		throw new UnsupportedOperationException();
+	}
+	
+	public short getShort(int column) {
+		return (short) getLong(column);
+	}
+	
+	public int getInt(int column) {
+		return (int) getLong(column);
+	}
+	
+	public long getLong(int column) {
+		Object value = get(column);
+		return value == null ? 0 : ((Number) value).longValue();
+	}
+	
+	public float getFloat(int column) {
+		return (float) getDouble(column);
+	}
+	
+	public double getDouble(int column) {
+		Object value = get(column);
+		return value == null ? 0 : ((Number) value).doubleValue();
+	}
+	
+	public int getType(int column) {
+		Object value = get(column);
+		if (value == null)
+			return FIELD_TYPE_NULL;
+		if (value instanceof String)
+			return FIELD_TYPE_STRING;
+		if (value instanceof Float || value instanceof Double)
+			return FIELD_TYPE_FLOAT;
+		return FIELD_TYPE_INTEGER;
+	}
+	
+	public boolean isNull(int column) {
+		return get(column) == null;
+	}
+	
+	/**************************************************************************
+	 * Life cycle and observers, not supported                                *
+	 **************************************************************************/
+	
+	public void deactivate() {
+	}
+	
+	public boolean requery() {
+		return false;
+	}
+	
+	public void close() {
+		closed = true;
+	}
+	
+	public boolean isClosed() {
+		return closed;
+	}
+	
+	public void registerContentObserver(ContentObserver observer) {
+	}
+	
+	public void unregisterContentObserver(ContentObserver observer) {
+	}
+	
+	public void registerDataSetObserver(DataSetObserver observer) {
+	}
+	
+	public void unregisterDataSetObserver(DataSetObserver observer) {
+	}
+	
+	public void setNotificationUri(ContentResolver resolver, Uri uri) {
+	}
+	
+	public Uri getNotificationUri() {
+		return null;
+	}
+	
+	public boolean getWantsAllOnMoveCalls() {
+		return false;
+	}
+	
+	public Bundle getExtras() {
+		return null;
+	}
+	
+	public Bundle respond(Bundle extras) {
+		return null;
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * TaskRowMapperTest.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.worcester.cs499summer2012.comparator.RandomTasks;
+import edu.worcester.cs499summer2012.task.HeapUsage;
+import edu.worcester.cs499summer2012.task.Task;
+
+/**
+ * Checks what TaskRowMapper reads and how many objects it creates.
+ */
+public class TaskRowMapperTest {
+	
+	private static final int ROWS = 5000;
+	private static final int NOTES_LENGTH = 1000;
+	
+	@Test
+	public void mapReadsEveryColumn() {
+		List<Task> tasks = RandomTasks.create(new Random(0), 100);
+		RowCursor cursor = cursorOf(tasks, TaskRowMapper.LIST_COLUMNS);
+		TaskRowMapper mapper = new TaskRowMapper(cursor);
+		for (Task expected : tasks) {
+			assertTrue(cursor.moveToNext());
+			Task actual = mapper.map(cursor);
+			assertEquals(expected.getID(), actual.getID());
+			assertEquals(expected.getName(), actual.getName());
+			assertEquals(expected.isCompleted(), actual.isCompleted());
+			assertEquals(expected.getPriority(), actual.getPriority());
+			assertEquals(expected.getCategory(), actual.getCategory());
+			assertEquals(expected.hasDateDue(), actual.hasDateDue());
+			assertEquals(expected.isRepeating(), actual.isRepeating());
+			assertEquals(expected.getDateCreated(), actual.getDateCreated());
+			assertEquals(expected.getDateModified(), actual.getDateModified());
+			assertEquals(expected.getDateDue(), actual.getDateDue());
+		}
+	}
+	
+	@Test
+	public void equalNamesAreReadOnce() {
+		// RandomTasks uses a handful of names, the cursor returns a new 
+		// String on every read
+		List<Task> tasks = RandomTasks.create(new Random(0), ROWS);
+		IdentityHashMap<String, Boolean> distinct = new IdentityHashMap<String, Boolean>();
+		for (Task task : tasks)
+			distinct.put(task.getName(), Boolean.TRUE);
+		int names = distinct.size();
+		
+		RowCursor cursor = cursorOf(tasks, TaskRowMapper.LIST_COLUMNS);
+		TaskRowMapper mapper = new TaskRowMapper(cursor);
+		IdentityHashMap<Task, Boolean> mapped = new IdentityHashMap<Task, Boolean>();
+		IdentityHashMap<String, Boolean> mapped_names = new IdentityHashMap<String, Boolean>();
+		while (cursor.moveToNext()) {
+			Task task = mapper.map(cursor);
+			mapped.put(task, Boolean.TRUE);
+			mapped_names.put(task.getName(), Boolean.TRUE);
+		}
+		
+		// One task per row, one name String per distinct name
+		assertEquals(ROWS, mapped.size());
+		assertEquals(names, mapped_names.size());
+	}
+	
+	@Test
+	public void listColumnsLeaveOutNotes() {
+		List<Task> tasks = tasksWithNotes(new Random(0), 100);
+		
+		RowCursor list = cursorOf(tasks, TaskRowMapper.LIST_COLUMNS);
+		TaskRowMapper list_mapper = new TaskRowMapper(list);
+		while (list.moveToNext()) {
+			Task task = list_mapper.map(list);
+			assertFalse(task.hasNotesLoaded());
+			assertNull(task.getNotes());
+		}
+		
+		RowCursor full = cursorOf(tasks, allColumns());
+		TaskRowMapper full_mapper = new TaskRowMapper(full);
+		for (Task expected : tasks) {
+			assertTrue(full.moveToNext());
+			Task task = full_mapper.map(full);
+			assertTrue(task.hasNotesLoaded());
+			assertEquals(expected.getNotes(), task.getNotes());
+		}
+	}
+	
+	@Test
+	public void listColumnsSaveHeap() {
+		List<Task> tasks = tasksWithNotes(new Random(0), ROWS);
+		long list = retainedHeap(cursorOf(tasks, TaskRowMapper.LIST_COLUMNS));
+		long full = retainedHeap(cursorOf(tasks, allColumns()));
+		
+		// Notes of a thousand characters take several times the task itself
+		assertTrue("list " + list / ROWS + " B/task, full " + full / ROWS + " B/task", 
+				list * 4 < full);
+	}
+	
+	/**
+	 * @return the heap retained by the tasks mapped from every row of the 
+	 *         cursor, in bytes
+	 */
+	private static long retainedHeap(RowCursor cursor) {
+		TaskRowMapper mapper = new TaskRowMapper(cursor);
+		Task[] tasks = new Task[cursor.getCount()];
+		long before = HeapUsage.used();
+		for (int i = 0; cursor.moveToNext(); i++)
+			tasks[i] = mapper.map(cursor);
+		long retained = HeapUsage.used() - before;
+		assertEquals(tasks.length, cursor.getPosition());
+		return retained;
+	}
+	
+	private static List<Task> tasksWithNotes(Random random, int count) {
+		List<Task> tasks = RandomTasks.create(random, count);
+		char[] notes = new char[NOTES_LENGTH];
+		for (Task task : tasks) {
+			for (int i = 0; i < notes.length; i++)
+				notes[i] = (char) ('a' + random.nextInt(26));
+			task.setNotes(new String(notes));
+		}
+		return tasks;
+	}
+	
+	private static String[] allColumns() {
+		String[] columns = new String[TaskRowMapper.LIST_COLUMNS.length + 1];
+		System.arraycopy(TaskRowMapper.LIST_COLUMNS, 0, columns, 0, 
+				TaskRowMapper.LIST_COLUMNS.length);
+		columns[columns.length - 1] = DatabaseHandler.KEY_NOTES;
+		return columns;
+	}
+	
+	/**
+	 * @return a cursor with one row per task, over the given columns of 
+	 *         the tasks table
+	 */
+	static RowCursor cursorOf(List<Task> tasks, String[] columns) {
+		RowCursor cursor = new RowCursor(columns);
+		for (Task task : tasks) {
+			ArrayList<Object> row = new ArrayList<Object>(columns.length);
+			for (String column : columns)
+				row.add(valueOf(task, column));
+			cursor.addRow(row.toArray());
+		}
+		return cursor;
+	}
+	
+	private static Object valueOf(Task task, String column) {
+		if (column.equals(DatabaseHandler.KEY_ID))
+			return task.getID();
+		if (column.equals(DatabaseHandler.KEY_NAME))
+			return task.getName();
+		if (column.equals(DatabaseHandler.KEY_COMPLETION))
+			return task.isCompleted() ? 1 : 0;
+		if (column.equals(DatabaseHandler.KEY_PRIORITY))
+			return task.getPriority();
+		if (column.equals(DatabaseHandler.KEY_CATEGORY))
+			return task.getCategory();
+		if (column.equals(DatabaseHandler.KEY_HAS_DUE_DATE))
+			return task.hasDateDue() ? 1 : 0;
+		if (column.equals(DatabaseHandler.KEY_HAS_FINAL_DUE_DATE))
+			return task.hasFinalDateDue() ? 1 : 0;
+		if (column.equals(DatabaseHandler.KEY_IS_REPEATING))
+			return task.isRepeating() ? 1 : 0;
+		if (column.equals(DatabaseHandler.KEY_REPEAT_TYPE))
+			return task.getRepeatType();
+		if (column.equals(DatabaseHandler.KEY_REPEAT_INTERVAL))
+			return task.getRepeatInterval();
+		if (column.equals(DatabaseHandler.KEY_CREATION_DATE))
+			return task.getDateCreated();
+		if (column.equals(DatabaseHandler.KEY_MODIFICATION_DATE))
+			return task.getDateModified();
+		if (column.equals(DatabaseHandler.KEY_DUE_DATE))
+			return task.getDateDue();
+		if (column.equals(DatabaseHandler.KEY_G_ID))
+			return task.getgID();
+		if (column.equals(DatabaseHandler.KEY_NOTES))
+			return task.getNotes();
+		throw new IllegalArgumentException(column);
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * TaskTest.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.task;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.worcester.cs499summer2012.comparator.RandomTasks;
+import edu.worcester.cs499summer2012.comparator.TaskCompositeComparator;
+import edu.worcester.cs499summer2012.comparator.TaskSortKeys;
+
+/**
+ * Checks that tasks only create their calendars when asked for them, and
+ * what that saves on the heap.
+ */
+public class TaskTest {
+	
+	private static final int HEAP_TASKS = 20000;
+	
+	@Test
+	public void sortingCreatesNoCalendars() {
+		Random random = new Random(0);
+		ArrayList<Task> tasks = RandomTasks.create(random, 1000);
+		TaskSortKeys.sort(tasks);
+		for (int run = 0; run < 20; run++)
+			Collections.sort(tasks, new TaskCompositeComparator(RandomTasks.createSettings(random)));
+		
+		for (Task task : tasks) {
+			task.isPastDue();
+			assertEquals(0, task.getCalendarCount());
+		}
+	}
+	
+	@Test
+	public void calendarsFollowTheDates() {
+		Task task = RandomTasks.create(new Random(0), 1).get(0);
+		task.setDateDue(1340000000000L);
+		
+		assertSame(task.getDateCreatedCal(), task.getDateCreatedCal());
+		assertEquals(task.getDateCreated(), task.getDateCreatedCal().getTimeInMillis());
+		assertEquals(1, task.getCalendarCount());
+		
+		task.getDateModifiedCal();
+		task.setDateModified(1350000000000L);
+		assertEquals(1350000000000L, task.getDateModifiedCal().getTimeInMillis());
+		
+		task.getDateDueCal();
+		task.setDateDue(1360000000000L);
+		assertEquals(1360000000000L, task.getDateDueCal().getTimeInMillis());
+		assertEquals(3, task.getCalendarCount());
+		
+		task.setHasDateDue(false);
+		assertNull(task.getDateDueCal());
+		assertEquals(2, task.getCalendarCount());
+	}
+	
+	@Test
+	public void lazyCalendarsSaveHeap() {
+		Task[] tasks = new Task[HEAP_TASKS];
+		long before = HeapUsage.used();
+		for (int i = 0; i < HEAP_TASKS; i++)
+			tasks[i] = new Task(i + 1, "task", false, Task.NORMAL, Category.NO_CATEGORY, 
+					true, false, false, Task.DAYS, 1, 
+					1340000000000L + i, 1340000000000L + i, 1350000000000L + i, null, null);
+		long lazy = HeapUsage.used() - before;
+		
+		for (Task task : tasks) {
+			task.getDateCreatedCal();
+			task.getDateModifiedCal();
+			task.getDateDueCal();
+		}
+		long eager = HeapUsage.used() - before;
+		
+		// The three calendars of a task take several times the task itself
+		assertTrue("lazy " + lazy / HEAP_TASKS + " B/task, eager " + eager / HEAP_TASKS + " B/task", 
+				lazy * 3 < eager);
+		assertEquals(3, tasks[HEAP_TASKS - 1].getCalendarCount());
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * IntObjectHashMapTest.java
+ * 
+ * Copyright 2012 Jonathan Hasenzahl, James Celona, Dhimitraq Jorgji
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package edu.worcester.cs499summer2012.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks IntObjectHashMap against HashMap on random operations.
+ */
+public class IntObjectHashMapTest {
+	
+	private static final int OPERATIONS = 20000;
+	
+	@Test
+	public void randomOperationsMatchHashMap() {
+		Random random = new Random(0);
+		
+		// Few keys for many replacements and removals, then any int
+		int[] key_ranges = { 64, 4096, 0 };
+		for (int range : key_ranges) {
+			IntObjectHashMap<String> map = new IntObjectHashMap<String>();
+			HashMap<Integer, String> expected = new HashMap<Integer, String>();
+			for (int op = 0; op < OPERATIONS; op++) {
+				int key = range > 0 ? random.nextInt(range) : random.nextInt();
+				int choice = random.nextInt(100);
+				if (choice < 50) {
+					String value = "v" + op;
+					assertEquals(expected.put(key, value), map.put(key, value));
+				} else if (choice < 80)
+					assertEquals(expected.remove(key), map.remove(key));
+				else if (choice < 99) {
+					assertEquals(expected.get(key), map.get(key));
+					assertEquals(expected.containsKey(key), map.containsKey(key));
+				} else {
+					expected.clear();
+					map.clear();
+				}
+				assertEquals(expected.size(), map.size());
+				
+				if (op % 1000 == 0)
+					assertSameMappings(expected, map, range);
+			}
+			assertSameMappings(expected, map, range);
+		}
+	}
+	
+	@Test
+	public void probeRunsWrapAround() {
+		// Eight slots and at most four mappings, so the table never grows 
+		// and probe runs often continue from the last slot to the first
+		Random random = new Random(0);
+		IntObjectHashMap<String> map = new IntObjectHashMap<String>(4);
+		HashMap<Integer, String> expected = new HashMap<Integer, String>();
+		for (int op = 0; op < OPERATIONS; op++) {
+			int key = random.nextInt(32);
+			if (expected.size() < 4 && random.nextBoolean()) {
+				String value = "v" + op;
+				assertEquals(expected.put(key, value), map.put(key, value));
+			} else
+				assertEquals(expected.remove(key), map.remove(key));
+			assertEquals(expected.size(), map.size());
+			assertSameMappings(expected, map, 32);
+		}
+	}
+	
+	@Test
+	public void rehashKeepsEveryMapping() {
+		IntObjectHashMap<Integer> map = new IntObjectHashMap<Integer>(1);
+		for (int key = -5000; key < 5000; key++) {
+			map.put(key, key);
+			assertEquals(key + 5001, map.size());
+		}
+		for (int key = -5000; key < 5000; key++)
+			assertEquals(Integer.valueOf(key), map.get(key));
+		
+		for (int key = -5000; key < 5000; key += 2)
+			assertEquals(Integer.valueOf(key), map.remove(key));
+		assertEquals(5000, map.size());
+		for (int key = -5000; key < 5000; key++)
+			assertEquals(key % 2 == 0 ? null : Integer.valueOf(key), map.get(key));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void nullValuesAreRejected() {
+		new IntObjectHashMap<String>().put(1, null);
+	}
+	
+	@Test
+	public void clearEmptiesTheMap() {
+		IntObjectHashMap<String> map = new IntObjectHashMap<String>();
+		for (int key = 0; key < 100; key++)
+			map.put(key, "v" + key);
+		map.clear();
+		assertTrue(map.isEmpty());
+		for (int key = 0; key < 100; key++)
+			assertNull(map.get(key));
+	}
+	
+	/**
+	 * Checks every expected mapping and, for a bounded key range, that no 
+	 * other key is mapped.
+	 */
+	private static void assertSameMappings(HashMap<Integer, String> expected, 
+			IntObjectHashMap<String> map, int range) {
+		assertEquals(expected.size(), map.size());
+		for (Map.Entry<Integer, String> entry : expected.entrySet())
+			assertEquals(entry.getValue(), map.get(entry.getKey()));
+		for (int key = 0; key < range; key++)
+			assertEquals(expected.containsKey(key), map.containsKey(key));
+	}
+}